@@ -0,0 +1,387 @@
+package org.example.pravega.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.RateLimiter;
+import io.pravega.client.ClientConfig;
+import io.pravega.client.EventStreamClientFactory;
+import io.pravega.client.admin.ReaderGroupManager;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.stream.EventStreamReader;
+import io.pravega.client.stream.EventStreamWriter;
+import io.pravega.client.stream.EventWriterConfig;
+import io.pravega.client.stream.ReaderConfig;
+import io.pravega.client.stream.ReaderGroupConfig;
+import io.pravega.client.stream.ScalingPolicy;
+import io.pravega.client.stream.Stream;
+import io.pravega.client.stream.StreamConfiguration;
+import io.pravega.client.stream.impl.ByteBufferSerializer;
+import io.pravega.common.concurrent.ExecutorServiceHelpers;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.example.pravega.inproccluster.InProcClusterFixture;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Measures write throughput, end-to-end latency and read catch-up rate against a Pravega cluster, by default the
+ * in-process one with in-memory storage that the tests share, see {@link InProcClusterFixture}.
+ *
+ * Each scenario writes to a new stream with a fixed number of segments, and runs in two phases. First, the writers
+ * append their events while a reader group tails the stream; every event carries the time it was appended, so the
+ * readers measure the latency from append to read. Then, a new reader group reads all the events back from the head of
+ * the stream, which gives the rate at which readers that have fallen behind catch up. The scenarios cover every
+ * combination of the given segment counts, event sizes, writer counts and reader counts, and their results are
+ * written to a JSON file.
+ */
+@Slf4j
+public class EndToEndBenchmark {
+
+    private static final String SCOPE = "benchmark";
+    private static final int ROUTING_KEY_COUNT = 1024;
+    private static final long READ_TIMEOUT_MILLIS = 1000;
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ClientConfig clientConfig;
+    private final int eventsPerWriter;
+    private final double eventsPerSecond;
+    private final int maxInFlightPerWriter;
+    private final Duration phaseTimeout;
+    private final String[] routingKeys = new String[ROUTING_KEY_COUNT];
+    private int streamCount = 0;
+
+    /**
+     * @param eventsPerWriter      number of events each writer appends in a scenario
+     * @param eventsPerSecond      target rate over all the writers; zero or less writes as fast as possible
+     * @param maxInFlightPerWriter maximum number of appends a writer has awaiting acknowledgement
+     * @param phaseTimeout         how long readers wait for all the events to arrive
+     */
+    public EndToEndBenchmark(ClientConfig clientConfig, int eventsPerWriter, double eventsPerSecond,
+                             int maxInFlightPerWriter, Duration phaseTimeout) {
+        Preconditions.checkArgument(eventsPerWriter > 0, "eventsPerWriter must be positive");
+        Preconditions.checkArgument(maxInFlightPerWriter > 0, "maxInFlightPerWriter must be positive");
+        this.clientConfig = clientConfig;
+        this.eventsPerWriter = eventsPerWriter;
+        this.eventsPerSecond = eventsPerSecond;
+        this.maxInFlightPerWriter = maxInFlightPerWriter;
+        this.phaseTimeout = phaseTimeout;
+        for (int i = 0; i < routingKeys.length; i++) {
+            routingKeys[i] = "key" + i;
+        }
+    }
+
+    @Value
+    public static class Scenario {
+        int segments;
+        int eventSize;
+        int writers;
+        int readers;
+    }
+
+    public List<ScenarioResult> run(List<Scenario> scenarios, boolean warmUp) throws Exception {
+        try (StreamManager streamManager = StreamManager.create(clientConfig)) {
+            streamManager.createScope(SCOPE);
+            if (warmUp && !scenarios.isEmpty()) {
+                log.info("Warming up with {}", scenarios.get(0));
+                run(streamManager, scenarios.get(0));
+            }
+            List<ScenarioResult> results = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                ScenarioResult result = run(streamManager, scenario);
+                log.info("{}", result);
+                results.add(result);
+            }
+            return results;
+        }
+    }
+
+    private ScenarioResult run(StreamManager streamManager, Scenario scenario) throws Exception {
+        Preconditions.checkArgument(scenario.getEventSize() >= Long.BYTES, "eventSize must be at least %s bytes",
+                Long.BYTES);
+        final String streamName = String.format("s%d-e%d-w%d-r%d-%d", scenario.getSegments(),
+                scenario.getEventSize(), scenario.getWriters(), scenario.getReaders(), streamCount++);
+        final Stream stream = Stream.of(SCOPE, streamName);
+        final long events = (long) scenario.getWriters() * eventsPerWriter;
+        streamManager.createStream(SCOPE, streamName, StreamConfiguration.builder()
+                .scalingPolicy(ScalingPolicy.fixed(scenario.getSegments()))
+                .build());
+
+        final ScheduledExecutorService executor = ExecutorServiceHelpers.newScheduledThreadPool(
+                scenario.getWriters() + scenario.getReaders(), "e2e-benchmark");
+        try (EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(SCOPE, clientConfig);
+             ReaderGroupManager readerGroupManager = ReaderGroupManager.withScope(SCOPE, clientConfig)) {
+
+            // The tailing readers join before anything is written, so that they read each event as it arrives.
+            final String tailGroup = streamName + "-tail";
+            readerGroupManager.createReaderGroup(tailGroup, ReaderGroupConfig.builder().stream(stream).build());
+            final Recorder latencies = new Recorder(HIGHEST_LATENCY_MICROS, 3);
+            final ReadProgress tail = new ReadProgress(events);
+            final List<Future<Void>> tailReaders = startReaders(executor, clientFactory, tailGroup,
+                    scenario.getReaders(), tail, latencies);
+
+            final LongAdder failedWrites = new LongAdder();
+            final long writeStart = System.nanoTime();
+            final List<Future<Void>> writers = new ArrayList<>();
+            for (int i = 0; i < scenario.getWriters(); i++) {
+                final int writerId = i;
+                writers.add(executor.submit(() -> write(clientFactory, streamName, writerId, scenario, failedWrites)));
+            }
+            awaitAll(writers);
+            final double writeSeconds = (System.nanoTime() - writeStart) / 1e9;
+            awaitAll(tailReaders);
+            readerGroupManager.deleteReaderGroup(tailGroup);
+            if (tail.count.get() < events) {
+                log.warn("Tailing readers read {} of {} events within {}", tail.count.get(), events, phaseTimeout);
+            }
+
+            final String catchUpGroup = streamName + "-catch-up";
+            readerGroupManager.createReaderGroup(catchUpGroup, ReaderGroupConfig.builder().stream(stream).build());
+            final ReadProgress catchUp = new ReadProgress(events);
+            awaitAll(startReaders(executor, clientFactory, catchUpGroup, scenario.getReaders(), catchUp, null));
+            readerGroupManager.deleteReaderGroup(catchUpGroup);
+            if (catchUp.count.get() < events) {
+                log.warn("Catch-up readers read {} of {} events within {}", catchUp.count.get(), events,
+                        phaseTimeout);
+            }
+            final double catchUpSeconds = catchUp.elapsedSeconds();
+
+            final Histogram latencyHistogram = latencies.getIntervalHistogram();
+            final double megabytes = events * (double) scenario.getEventSize() / (1024 * 1024);
+            return ScenarioResult.builder()
+                    .segments(scenario.getSegments())
+                    .eventSize(scenario.getEventSize())
+                    .writers(scenario.getWriters())
+                    .readers(scenario.getReaders())
+                    .events(events)
+                    .failedWrites(failedWrites.sum())
+                    .writeSeconds(writeSeconds)
+                    .writeEventsPerSecond(events / writeSeconds)
+                    .writeMegabytesPerSecond(megabytes / writeSeconds)
+                    .tailEventsRead(tail.count.get())
+                    .endToEndLatencyP50Millis(millis(latencyHistogram.getValueAtPercentile(50)))
+                    .endToEndLatencyP99Millis(millis(latencyHistogram.getValueAtPercentile(99)))
+                    .endToEndLatencyP999Millis(millis(latencyHistogram.getValueAtPercentile(99.9)))
+                    .endToEndLatencyMaxMillis(millis(latencyHistogram.getMaxValue()))
+                    .catchUpEventsRead(catchUp.count.get())
+                    .catchUpSeconds(catchUpSeconds)
+                    .catchUpEventsPerSecond(catchUp.count.get() / catchUpSeconds)
+                    .catchUpMegabytesPerSecond(megabytes * catchUp.count.get() / events / catchUpSeconds)
+                    .build();
+        } finally {
+            ExecutorServiceHelpers.shutdown(executor);
+            // Streams are dropped as soon as they are measured, so that in-memory storage does not fill up.
+            streamManager.sealStream(SCOPE, streamName);
+            streamManager.deleteStream(SCOPE, streamName);
+        }
+    }
+
+    private Void write(EventStreamClientFactory clientFactory, String streamName, int writerId, Scenario scenario,
+                       LongAdder failedWrites) throws InterruptedException {
+        final RateLimiter pacer = eventsPerSecond > 0 ? RateLimiter.create(eventsPerSecond / scenario.getWriters())
+                : null;
+        final Semaphore inFlight = new Semaphore(maxInFlightPerWriter);
+        try (EventStreamWriter<ByteBuffer> writer = clientFactory.createEventWriter(streamName,
+                new ByteBufferSerializer(), EventWriterConfig.builder().build())) {
+            for (int i = 0; i < eventsPerWriter; i++) {
+                if (pacer != null) {
+                    pacer.acquire();
+                }
+                inFlight.acquire();
+                ByteBuffer event = ByteBuffer.allocate(scenario.getEventSize());
+                event.putLong(0, System.nanoTime());
+                writer.writeEvent(routingKeys[(writerId + i) % routingKeys.length], event).whenComplete((v, e) -> {
+                    inFlight.release();
+                    if (e != null) {
+                        failedWrites.increment();
+                    }
+                });
+            }
+            writer.flush();
+        }
+        return null;
+    }
+
+    private List<Future<Void>> startReaders(ScheduledExecutorService executor,
+                                            EventStreamClientFactory clientFactory, String readerGroup,
+                                            int readerCount, ReadProgress progress, Recorder latencies) {
+        final long deadline = System.nanoTime() + phaseTimeout.toNanos();
+        final List<Future<Void>> readers = new ArrayList<>();
+        for (int i = 0; i < readerCount; i++) {
+            final String readerId = "reader" + i;
+            readers.add(executor.submit((Callable<Void>) () -> {
+                try (EventStreamReader<ByteBuffer> reader = clientFactory.createReader(readerId, readerGroup,
+                        new ByteBufferSerializer(), ReaderConfig.builder().build())) {
+                    while (!progress.isComplete() && System.nanoTime() < deadline) {
+                        ByteBuffer event = reader.readNextEvent(READ_TIMEOUT_MILLIS).getEvent();
+                        if (event != null) {
+                            if (latencies != null) {
+                                long latencyNanos = System.nanoTime() - event.getLong(event.position());
+                                latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos),
+                                        HIGHEST_LATENCY_MICROS));
+                            }
+                            progress.eventRead();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        return readers;
+    }
+
+    private static void awaitAll(List<Future<Void>> futures) throws InterruptedException, ExecutionException {
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Counts the events read by a reader group, and records when the last expected one was read.
+     */
+    private static final class ReadProgress {
+
+        private final long expected;
+        private final long startTime = System.nanoTime();
+        private final AtomicLong count = new AtomicLong();
+        private volatile long endTime = 0;
+
+        ReadProgress(long expected) {
+            this.expected = expected;
+        }
+
+        void eventRead() {
+            if (count.incrementAndGet() == expected) {
+                endTime = System.nanoTime();
+            }
+        }
+
+        boolean isComplete() {
+            return count.get() >= expected;
+        }
+
+        double elapsedSeconds() {
+            return ((endTime == 0 ? System.nanoTime() : endTime) - startTime) / 1e9;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+        options.addOption("c", "controller", true,
+                "Controller URI of an existing cluster; by default an in-process cluster is started");
+        options.addOption("s", "segments", true, "Comma-separated segment counts (default 1,4)");
+        options.addOption("e", "event-sizes", true, "Comma-separated event sizes in bytes (default 100,1024)");
+        options.addOption("w", "writers", true, "Comma-separated writer counts (default 1,4)");
+        options.addOption("r", "readers", true, "Comma-separated reader counts (default 1,4)");
+        options.addOption("n", "events-per-writer", true, "Events each writer appends per scenario (default 10000)");
+        options.addOption(null, "rate", true, "Target events per second over all writers; 0 is unpaced (default 0)");
+        options.addOption(null, "max-in-flight", true, "Maximum outstanding appends per writer (default 1000)");
+        options.addOption(null, "timeout", true, "Seconds readers wait for all events in a phase (default 300)");
+        options.addOption(null, "no-warmup", false, "Do not run the first scenario once before measuring");
+        options.addOption("o", "output", true,
+                "JSON results file (default build/reports/e2e-benchmark/results.json)");
+        options.addOption("h", "help", false, "Print this help");
+
+        CommandLine cmd;
+        try {
+            cmd = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp(EndToEndBenchmark.class.getSimpleName(), options);
+            return;
+        }
+        if (cmd.hasOption("help")) {
+            new HelpFormatter().printHelp(EndToEndBenchmark.class.getSimpleName(), options);
+            return;
+        }
+
+        final List<Scenario> scenarios = new ArrayList<>();
+        for (int segments : parseList(cmd.getOptionValue("segments", "1,4"))) {
+            for (int eventSize : parseList(cmd.getOptionValue("event-sizes", "100,1024"))) {
+                for (int writers : parseList(cmd.getOptionValue("writers", "1,4"))) {
+                    for (int readers : parseList(cmd.getOptionValue("readers", "1,4"))) {
+                        scenarios.add(new Scenario(segments, eventSize, writers, readers));
+                    }
+                }
+            }
+        }
+        final int eventsPerWriter = Integer.parseInt(cmd.getOptionValue("events-per-writer", "10000"));
+        final double eventsPerSecond = Double.parseDouble(cmd.getOptionValue("rate", "0"));
+        final int maxInFlight = Integer.parseInt(cmd.getOptionValue("max-in-flight", "1000"));
+        final Duration timeout = Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("timeout", "300")));
+        final Path output = Paths.get(cmd.getOptionValue("output", "build/reports/e2e-benchmark/results.json"));
+
+        final ClientConfig clientConfig;
+        if (cmd.hasOption("controller")) {
+            clientConfig = ClientConfig.builder().controllerURI(URI.create(cmd.getOptionValue("controller"))).build();
+        } else {
+            clientConfig = InProcClusterFixture.get(false, false).clientConfig();
+        }
+        try {
+            EndToEndBenchmark benchmark = new EndToEndBenchmark(clientConfig, eventsPerWriter, eventsPerSecond,
+                    maxInFlight, timeout);
+            List<ScenarioResult> results = benchmark.run(scenarios, !cmd.hasOption("no-warmup"));
+            writeResults(output, clientConfig.getControllerURI(), !cmd.hasOption("controller"), eventsPerWriter,
+                    eventsPerSecond, maxInFlight, results);
+            log.info("Wrote the results of {} scenarios to {}", results.size(), output);
+        } finally {
+            InProcClusterFixture.shutdown();
+        }
+    }
+
+    private static void writeResults(Path output, URI controllerUri, boolean inProcCluster, int eventsPerWriter,
+                                     double eventsPerSecond, int maxInFlight, List<ScenarioResult> results)
+            throws IOException {
+        ObjectNode report = OBJECT_MAPPER.createObjectNode();
+        report.put("timestamp", Instant.now().toString());
+        report.put("controllerUri", controllerUri.toString());
+        report.put("inProcCluster", inProcCluster);
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("eventsPerWriter", eventsPerWriter);
+        report.put("eventsPerSecond", eventsPerSecond);
+        report.put("maxInFlightPerWriter", maxInFlight);
+        report.set("results", OBJECT_MAPPER.valueToTree(results));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+    }
+
+    private static List<Integer> parseList(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+    }
+}
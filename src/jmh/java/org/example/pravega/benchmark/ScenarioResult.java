@@ -0,0 +1,47 @@
+package org.example.pravega.benchmark;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of one {@link EndToEndBenchmark} scenario, written to the JSON results as it is.
+ */
+@Getter @Builder @ToString
+public class ScenarioResult {
+
+    private final int segments;
+    private final int eventSize;
+    private final int writers;
+    private final int readers;
+
+    /**
+     * Number of events written, over all the writers.
+     */
+    private final long events;
+    private final long failedWrites;
+
+    /**
+     * Time from the first append until every writer has flushed, and the resulting rates.
+     */
+    private final double writeSeconds;
+    private final double writeEventsPerSecond;
+    private final double writeMegabytesPerSecond;
+
+    /**
+     * Time from the append of an event until a tailing reader reads it.
+     */
+    private final long tailEventsRead;
+    private final double endToEndLatencyP50Millis;
+    private final double endToEndLatencyP99Millis;
+    private final double endToEndLatencyP999Millis;
+    private final double endToEndLatencyMaxMillis;
+
+    /**
+     * Time for a new reader group to read all the events from the head of the stream, and the resulting rates.
+     */
+    private final long catchUpEventsRead;
+    private final double catchUpSeconds;
+    private final double catchUpEventsPerSecond;
+    private final double catchUpMegabytesPerSecond;
+}
@@ -0,0 +1,165 @@
+package org.example.pravega.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.base.Strings;
+import io.pravega.client.stream.Serializer;
+import io.pravega.client.stream.impl.JavaSerializer;
+import io.pravega.client.stream.impl.UTF8StringSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.pravega.client.basicreadwrite.json.BinaryJsonNodeSerializer;
+import org.example.pravega.client.basicreadwrite.json.JsonNodeSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of the serializers used in the examples on payloads of several sizes.
+ *
+ * String serializers are given the payload as text, and JSON serializers as a parsed tree. Run with the 'jmh' Gradle
+ * task, which adds the GC profiler: its gc.alloc.rate.norm result is the number of bytes allocated per operation. The
+ * size of each serialized payload is logged during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Slf4j
+public class SerializerBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public enum Payload {
+        SHORT_STRING(0),
+        JSON_1KB(1024),
+        JSON_64KB(64 * 1024);
+
+        private final int size;
+
+        Payload(int size) {
+            this.size = size;
+        }
+    }
+
+    public enum SerializerType {
+        JAVA,
+        UTF8,
+        JSON,
+        /**
+         * JSON written with {@link ObjectMapper#writeValueAsBytes}, as a baseline for the buffer reuse of
+         * {@link JsonNodeSerializer}.
+         */
+        JSON_AS_BYTES,
+        SMILE,
+        CBOR
+    }
+
+    @Param
+    public Payload payload;
+
+    @Param
+    public SerializerType serializerType;
+
+    private Serializer<Object> serializer;
+    private Object value;
+    private ByteBuffer serialized;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        String text = payload == Payload.SHORT_STRING ? "data of size 30" : json(payload.size);
+        switch (serializerType) {
+            case JAVA:
+                serializer = (Serializer<Object>) (Serializer<?>) new JavaSerializer<String>();
+                value = text;
+                break;
+            case UTF8:
+                serializer = (Serializer<Object>) (Serializer<?>) new UTF8StringSerializer();
+                value = text;
+                break;
+            default:
+                serializer = (Serializer<Object>) (Serializer<?>) jsonSerializer(serializerType);
+                value = payload == Payload.SHORT_STRING ? TextNode.valueOf(text) : parse(text);
+                break;
+        }
+        serialized = serializer.serialize(value);
+        log.info("{} {}: {} bytes serialized", serializerType, payload, serialized.remaining());
+    }
+
+    @Benchmark
+    public ByteBuffer serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized.duplicate());
+    }
+
+    private static Serializer<JsonNode> jsonSerializer(SerializerType serializerType) {
+        switch (serializerType) {
+            case JSON:
+                return new JsonNodeSerializer();
+            case JSON_AS_BYTES:
+                return new JsonNodeSerializer() {
+                    @Override
+                    public ByteBuffer serialize(JsonNode value) {
+                        try {
+                            return ByteBuffer.wrap(OBJECT_MAPPER.writeValueAsBytes(value));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                };
+            case SMILE:
+                return new BinaryJsonNodeSerializer(BinaryJsonNodeSerializer.Format.SMILE);
+            case CBOR:
+                return new BinaryJsonNodeSerializer(BinaryJsonNodeSerializer.Format.CBOR);
+            default:
+                throw new IllegalArgumentException("Not a JSON serializer: " + serializerType);
+        }
+    }
+
+    /**
+     * Builds a JSON document of about the given size, shaped like the company site records of the JSON examples.
+     */
+    private static String json(int size) {
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        int i = 0;
+        while (root.toString().length() < size) {
+            root.putObject("site" + i)
+                    .put("id", i * 0.5)
+                    .put("name", "My Corp")
+                    .put("building", i % 10)
+                    .put("location", "India")
+                    .put("description", Strings.repeat("x", 32));
+            i++;
+        }
+        return root.toString();
+    }
+
+    private static JsonNode parse(String text) {
+        try {
+            return OBJECT_MAPPER.readTree(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
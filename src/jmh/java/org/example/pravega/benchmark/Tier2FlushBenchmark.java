@@ -0,0 +1,348 @@
+package org.example.pravega.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Preconditions;
+import io.pravega.client.ClientConfig;
+import io.pravega.client.EventStreamClientFactory;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.stream.EventStreamWriter;
+import io.pravega.client.stream.EventWriterConfig;
+import io.pravega.client.stream.ScalingPolicy;
+import io.pravega.client.stream.StreamConfiguration;
+import io.pravega.client.stream.impl.ByteBufferSerializer;
+import io.pravega.common.concurrent.ExecutorServiceHelpers;
+import io.pravega.local.InProcPravegaCluster;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.example.pravega.inproccluster.InProcClusterConfig;
+import org.example.pravega.shared.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the sustained write throughput of an in-process cluster that keeps its data in files, once the cache of
+ * the segment store is full and appends can only go as fast as the data is flushed to tier-2.
+ *
+ * The writers append far more data than the cache holds, as fast as the in-flight limit allows. Every second, the
+ * benchmark samples the bytes acknowledged to the writers and the bytes in the tier-2 directory; their difference is
+ * the backlog the segment store has yet to flush. Once the writers are done, it waits for tier-2 to catch up. The
+ * sustained rates are taken over the second half of the writes, past the point where the cache absorbs them. The
+ * timeline and the summary are written to a JSON file.
+ *
+ * The tier-1 log is kept in BookKeeper, see {@link InProcClusterConfig}. The thresholds at which the segment store
+ * flushes to tier-2 can be changed with system properties, e.g. {@code -Dwriter.flushThresholdBytes=...}.
+ */
+@Slf4j
+public class Tier2FlushBenchmark {
+
+    private static final String SCOPE = "benchmark";
+    private static final int ROUTING_KEY_COUNT = 1024;
+    private static final long MEGABYTE = 1024 * 1024;
+    private static final long SAMPLE_INTERVAL_MILLIS = 1000;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ClientConfig clientConfig;
+    private final Path tier2Directory;
+    private final int segments;
+    private final int eventSize;
+    private final int writerCount;
+    private final long eventsPerWriter;
+    private final int maxInFlightPerWriter;
+    private final long drainTimeoutSeconds;
+    private final long drainIdleSeconds;
+    private final String[] routingKeys = new String[ROUTING_KEY_COUNT];
+    private final LongAdder appendedBytes = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+    private final List<Sample> samples = new ArrayList<>();
+
+    /**
+     * @param totalMegabytes      data appended over all the writers, which should be well above the cache size
+     * @param drainTimeoutSeconds how long to wait for tier-2 to catch up once the writers are done
+     * @param drainIdleSeconds    how long tier-2 may stay the same size before it is deemed caught up
+     */
+    public Tier2FlushBenchmark(ClientConfig clientConfig, Path tier2Directory, int segments, int eventSize,
+                               int writerCount, long totalMegabytes, int maxInFlightPerWriter,
+                               long drainTimeoutSeconds, long drainIdleSeconds) {
+        Preconditions.checkArgument(segments > 0, "segments must be positive");
+        Preconditions.checkArgument(eventSize > 0, "eventSize must be positive");
+        Preconditions.checkArgument(writerCount > 0, "writerCount must be positive");
+        Preconditions.checkArgument(totalMegabytes > 0, "totalMegabytes must be positive");
+        Preconditions.checkArgument(maxInFlightPerWriter > 0, "maxInFlightPerWriter must be positive");
+        this.clientConfig = clientConfig;
+        this.tier2Directory = tier2Directory;
+        this.segments = segments;
+        this.eventSize = eventSize;
+        this.writerCount = writerCount;
+        this.eventsPerWriter = Math.max(1, totalMegabytes * MEGABYTE / eventSize / writerCount);
+        this.maxInFlightPerWriter = maxInFlightPerWriter;
+        this.drainTimeoutSeconds = drainTimeoutSeconds;
+        this.drainIdleSeconds = drainIdleSeconds;
+        for (int i = 0; i < routingKeys.length; i++) {
+            routingKeys[i] = "key" + i;
+        }
+    }
+
+    /**
+     * Bytes acknowledged to the writers and bytes in tier-2 at some point of the run, both counted from its start.
+     */
+    @Value
+    public static class Sample {
+        double seconds;
+        long appendedBytes;
+        long tier2Bytes;
+
+        public long getBacklogBytes() {
+            return Math.max(0, appendedBytes - tier2Bytes);
+        }
+    }
+
+    public ObjectNode run() throws Exception {
+        final String streamName = "tier2-flush-" + System.currentTimeMillis();
+        try (StreamManager streamManager = StreamManager.create(clientConfig)) {
+            streamManager.createScope(SCOPE);
+            streamManager.createStream(SCOPE, streamName, StreamConfiguration.builder()
+                    .scalingPolicy(ScalingPolicy.fixed(segments))
+                    .build());
+        }
+
+        // Files left by earlier runs, and those of the system segments created so far, are not part of the result.
+        final long tier2BaseBytes = tier2Bytes();
+        final long events = eventsPerWriter * writerCount;
+        final long expectedBytes = events * eventSize;
+        log.info("Writing {} events of {} bytes to {} segments with {} writers", events, eventSize, segments,
+                writerCount);
+
+        final ExecutorService executor = ExecutorServiceHelpers.newScheduledThreadPool(writerCount, "tier2-writer");
+        final double writeSeconds;
+        final double drainSeconds;
+        try (EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(SCOPE, clientConfig)) {
+            final long start = System.nanoTime();
+            final List<Future<Void>> writers = new ArrayList<>();
+            for (int i = 0; i < writerCount; i++) {
+                final int writerId = i;
+                writers.add(executor.submit(() -> write(clientFactory, streamName, writerId)));
+            }
+            while (!writers.stream().allMatch(Future::isDone)) {
+                sample(start, tier2BaseBytes);
+            }
+            for (Future<Void> writer : writers) {
+                writer.get();
+            }
+            writeSeconds = (System.nanoTime() - start) / 1e9;
+            log.info("Writers done after {} seconds", String.format("%.1f", writeSeconds));
+
+            // Tier-2 also holds the attributes and metadata of the segments, so it may end up with more bytes than
+            // were appended; it may also keep less if it stalls, hence the idle limit.
+            final long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainTimeoutSeconds);
+            long lastGrowth = System.nanoTime();
+            long lastTier2Bytes = samples.isEmpty() ? 0 : samples.get(samples.size() - 1).getTier2Bytes();
+            while (lastTier2Bytes < expectedBytes && System.nanoTime() < drainDeadline
+                    && System.nanoTime() - lastGrowth < TimeUnit.SECONDS.toNanos(drainIdleSeconds)) {
+                long tier2Bytes = sample(start, tier2BaseBytes).getTier2Bytes();
+                if (tier2Bytes > lastTier2Bytes) {
+                    lastGrowth = System.nanoTime();
+                    lastTier2Bytes = tier2Bytes;
+                }
+            }
+            drainSeconds = (System.nanoTime() - start) / 1e9 - writeSeconds;
+        } finally {
+            ExecutorServiceHelpers.shutdown(executor);
+        }
+        return summary(events, expectedBytes, writeSeconds, drainSeconds);
+    }
+
+    private Void write(EventStreamClientFactory clientFactory, String streamName, int writerId)
+            throws InterruptedException {
+        final byte[] bytes = new byte[eventSize];
+        new Random(writerId).nextBytes(bytes);
+        final ByteBuffer payload = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        final Semaphore inFlight = new Semaphore(maxInFlightPerWriter);
+        try (EventStreamWriter<ByteBuffer> writer = clientFactory.createEventWriter(streamName,
+                new ByteBufferSerializer(), EventWriterConfig.builder().build())) {
+            for (long i = 0; i < eventsPerWriter; i++) {
+                inFlight.acquire();
+                writer.writeEvent(routingKeys[(int) ((writerId + i) % routingKeys.length)], payload.duplicate())
+                        .whenComplete((v, e) -> {
+                            inFlight.release();
+                            if (e == null) {
+                                appendedBytes.add(eventSize);
+                            } else {
+                                failedWrites.increment();
+                            }
+                        });
+            }
+            writer.flush();
+        }
+        return null;
+    }
+
+    private Sample sample(long start, long tier2BaseBytes) throws InterruptedException, IOException {
+        Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+        Sample sample = new Sample((System.nanoTime() - start) / 1e9, appendedBytes.sum(),
+                tier2Bytes() - tier2BaseBytes);
+        samples.add(sample);
+        log.info("{} s: appended {} MB, tier-2 {} MB, backlog {} MB", String.format("%.0f", sample.getSeconds()),
+                sample.getAppendedBytes() / MEGABYTE, sample.getTier2Bytes() / MEGABYTE,
+                sample.getBacklogBytes() / MEGABYTE);
+        return sample;
+    }
+
+    private long tier2Bytes() throws IOException {
+        final long[] bytes = {0};
+        Files.walkFileTree(tier2Directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                bytes[0] += attributes.size();
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // Segments are written, merged and truncated while the tree is walked.
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return bytes[0];
+    }
+
+    private ObjectNode summary(long events, long expectedBytes, double writeSeconds, double drainSeconds) {
+        final Sample last = lastSampleBefore(writeSeconds);
+        final Sample middle = lastSampleBefore(writeSeconds / 2);
+        final Sample end = samples.isEmpty() ? new Sample(0, 0, 0) : samples.get(samples.size() - 1);
+        final double sustainedSeconds = last.getSeconds() - middle.getSeconds();
+
+        ObjectNode summary = OBJECT_MAPPER.createObjectNode();
+        summary.put("events", events);
+        summary.put("megabytes", (double) expectedBytes / MEGABYTE);
+        summary.put("failedWrites", failedWrites.sum());
+        summary.put("writeSeconds", writeSeconds);
+        summary.put("appendMegabytesPerSecond", megabytesPerSecond(appendedBytes.sum(), writeSeconds));
+        summary.put("sustainedAppendMegabytesPerSecond",
+                megabytesPerSecond(last.getAppendedBytes() - middle.getAppendedBytes(), sustainedSeconds));
+        summary.put("sustainedFlushMegabytesPerSecond",
+                megabytesPerSecond(last.getTier2Bytes() - middle.getTier2Bytes(), sustainedSeconds));
+        summary.put("maxBacklogMegabytes",
+                (double) samples.stream().mapToLong(Sample::getBacklogBytes).max().orElse(0) / MEGABYTE);
+        summary.put("drainSeconds", drainSeconds);
+        summary.put("drainMegabytesPerSecond", megabytesPerSecond(end.getTier2Bytes() - last.getTier2Bytes(),
+                end.getSeconds() - last.getSeconds()));
+        summary.put("tier2Megabytes", (double) end.getTier2Bytes() / MEGABYTE);
+        return summary;
+    }
+
+    private Sample lastSampleBefore(double seconds) {
+        Sample result = new Sample(0, 0, 0);
+        for (Sample sample : samples) {
+            if (sample.getSeconds() <= seconds) {
+                result = sample;
+            }
+        }
+        return result;
+    }
+
+    private static double megabytesPerSecond(long bytes, double seconds) {
+        return seconds > 0 ? bytes / (double) MEGABYTE / seconds : Double.NaN;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+        options.addOption("t", "tier2-dir", true, "Directory of the tier-2 files (default build/tier2)");
+        options.addOption(null, "bookkeeper-zk", true, "ZooKeeper of the bookies (default localhost:2181)");
+        options.addOption(null, "bookies", true, "Number of bookies each tier-1 log entry is written to (default 1)");
+        options.addOption("m", "total-mb", true,
+                "Megabytes to write, well above the segment store cache (default 4096)");
+        options.addOption("s", "segments", true, "Number of segments (default 4)");
+        options.addOption("e", "event-size", true, "Event size in bytes (default 10240)");
+        options.addOption("w", "writers", true, "Number of writers (default 4)");
+        options.addOption(null, "max-in-flight", true, "Maximum outstanding appends per writer (default 1000)");
+        options.addOption(null, "drain-timeout", true,
+                "Seconds to wait for tier-2 to catch up once the writers are done (default 600)");
+        options.addOption(null, "drain-idle", true,
+                "Seconds without tier-2 growth after which it is deemed caught up (default 10)");
+        options.addOption("o", "output", true,
+                "JSON results file (default build/reports/tier2-flush-benchmark/results.json)");
+        options.addOption("h", "help", false, "Print this help");
+
+        CommandLine cmd;
+        try {
+            cmd = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp(Tier2FlushBenchmark.class.getSimpleName(), options);
+            return;
+        }
+        if (cmd.hasOption("help")) {
+            new HelpFormatter().printHelp(Tier2FlushBenchmark.class.getSimpleName(), options);
+            return;
+        }
+
+        final Path tier2Directory = Paths.get(cmd.getOptionValue("tier2-dir", "build/tier2"));
+        final int segments = Integer.parseInt(cmd.getOptionValue("segments", "4"));
+        final int eventSize = Integer.parseInt(cmd.getOptionValue("event-size", "10240"));
+        final int writers = Integer.parseInt(cmd.getOptionValue("writers", "4"));
+        final long totalMegabytes = Long.parseLong(cmd.getOptionValue("total-mb", "4096"));
+        final int maxInFlight = Integer.parseInt(cmd.getOptionValue("max-in-flight", "1000"));
+        final Path output = Paths.get(cmd.getOptionValue("output",
+                "build/reports/tier2-flush-benchmark/results.json"));
+
+        final int[] ports = Utils.freePorts(4);
+        final InProcClusterConfig config = InProcClusterConfig.builder()
+                .zkPort(ports[0])
+                .controllerPorts(new int[]{ports[1]})
+                .segmentStorePorts(new int[]{ports[2]})
+                .restServerPort(ports[3])
+                .tier2Directory(tier2Directory)
+                .bookKeeperZkUrl(cmd.getOptionValue("bookkeeper-zk", "localhost:2181"))
+                .bookKeeperEnsembleSize(Integer.parseInt(cmd.getOptionValue("bookies", "1")))
+                .build();
+        InProcPravegaCluster cluster = config.start();
+        try {
+            Tier2FlushBenchmark benchmark = new Tier2FlushBenchmark(config.clientConfig(), tier2Directory, segments,
+                    eventSize, writers, totalMegabytes, maxInFlight,
+                    Long.parseLong(cmd.getOptionValue("drain-timeout", "600")),
+                    Long.parseLong(cmd.getOptionValue("drain-idle", "10")));
+            ObjectNode summary = benchmark.run();
+            log.info("{}", summary);
+
+            ObjectNode report = OBJECT_MAPPER.createObjectNode();
+            report.put("timestamp", Instant.now().toString());
+            report.put("javaVersion", System.getProperty("java.version"));
+            report.put("tier2Directory", tier2Directory.toAbsolutePath().toString());
+            report.put("segments", segments);
+            report.put("eventSize", eventSize);
+            report.put("writers", writers);
+            report.put("maxInFlightPerWriter", maxInFlight);
+            report.set("summary", summary);
+            report.set("timeline", OBJECT_MAPPER.valueToTree(benchmark.samples));
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+            log.info("Wrote the results to {}", output);
+        } finally {
+            cluster.close();
+        }
+    }
+}
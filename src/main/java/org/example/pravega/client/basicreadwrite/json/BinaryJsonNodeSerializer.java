@@ -0,0 +1,108 @@
+package org.example.pravega.client.basicreadwrite.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import io.pravega.client.stream.Serializer;
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Serializes {@link JsonNode}s in a binary JSON encoding (Smile or CBOR), which is more compact and cheaper to parse
+ * than text JSON.
+ *
+ * Every event starts with the format's own header: ":)\n" for Smile and the self-describe tag (0xD9D9F7) for CBOR.
+ * Deserialization looks at the header to pick the encoding, and treats events without either header as text JSON, so
+ * streams written with {@link JsonNodeSerializer} (or a mix of encodings) remain readable.
+ */
+public class BinaryJsonNodeSerializer implements Serializer<JsonNode>, Serializable {
+
+    public enum Format {
+        JSON,
+        SMILE,
+        CBOR
+    }
+
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+    private static final byte[] CBOR_HEADER = {(byte) 0xD9, (byte) 0xD9, (byte) 0xF7};
+
+    private final Format format;
+    private final ObjectWriter writer;
+    private final ObjectReader jsonReader;
+    private final ObjectReader smileReader;
+    private final ObjectReader cborReader;
+
+    public BinaryJsonNodeSerializer() {
+        this(Format.SMILE);
+    }
+
+    public BinaryJsonNodeSerializer(@NonNull Format format) {
+        this.format = format;
+        ObjectMapper jsonMapper = new ObjectMapper();
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory().enable(SmileGenerator.Feature.WRITE_HEADER));
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory().enable(CBORGenerator.Feature.WRITE_TYPE_HEADER));
+        this.jsonReader = jsonMapper.readerFor(JsonNode.class);
+        this.smileReader = smileMapper.readerFor(JsonNode.class);
+        this.cborReader = cborMapper.readerFor(JsonNode.class);
+        this.writer = format == Format.SMILE ? smileMapper.writer()
+                : format == Format.CBOR ? cborMapper.writer()
+                : jsonMapper.writer();
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    @Override
+    public ByteBuffer serialize(JsonNode value) {
+        return JacksonSerialization.serialize(writer, value);
+    }
+
+    @Override
+    public JsonNode deserialize(ByteBuffer serializedValue) {
+        return JacksonSerialization.deserialize(readerFor(detectFormat(serializedValue)), serializedValue);
+    }
+
+    /**
+     * Returns the encoding of the given serialized event, without changing the buffer's position.
+     */
+    public static Format detectFormat(ByteBuffer serializedValue) {
+        if (startsWith(serializedValue, SMILE_HEADER)) {
+            return Format.SMILE;
+        } else if (startsWith(serializedValue, CBOR_HEADER)) {
+            return Format.CBOR;
+        } else {
+            return Format.JSON;
+        }
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, byte[] header) {
+        if (buffer.remaining() < header.length) {
+            return false;
+        }
+        for (int i = 0; i < header.length; i++) {
+            if (buffer.get(buffer.position() + i) != header[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ObjectReader readerFor(Format format) {
+        switch (format) {
+            case SMILE:
+                return smileReader;
+            case CBOR:
+                return cborReader;
+            default:
+                return jsonReader;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.pravega.client.basicreadwrite.json;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The sample payload written by {@link JSONWriter}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompanySite {
+    private double id;
+    private String name;
+    private int building;
+    private String location;
+
+    // Filler used to give generated events a particular size; left out of the JSON when not set.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String padding;
+}
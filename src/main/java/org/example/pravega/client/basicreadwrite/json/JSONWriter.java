@@ -1,23 +1,42 @@
 package org.example.pravega.client.basicreadwrite.json;
 
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.RateLimiter;
 import io.pravega.client.ClientConfig;
 import io.pravega.client.EventStreamClientFactory;
 import io.pravega.client.admin.StreamManager;
 import io.pravega.client.stream.EventStreamWriter;
 import io.pravega.client.stream.EventWriterConfig;
 import io.pravega.client.stream.StreamConfiguration;
+import io.pravega.client.stream.impl.ByteBufferSerializer;
 import io.pravega.client.stream.impl.DefaultCredentials;
 import lombok.extern.slf4j.Slf4j;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
 public class JSONWriter {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    // Events are bound straight from the POJO to JSON text; the result can still be read with a JsonNodeSerializer.
+    private static final PojoJsonSerializer<CompanySite> SERIALIZER = new PojoJsonSerializer<>(CompanySite.class);
+
     public final String scope;
     public final String streamName;
     public final URI controllerURI;
@@ -29,62 +48,203 @@ public class JSONWriter {
     }
 
     public void run(String routingKey) throws InterruptedException {
+        run(LoadProfile.builder().routingKeyPrefix(routingKey).build());
+    }
 
-        String streamName = "json-stream";
+    /**
+     * Writes events at the rate, size and routing key spread described by the given profile, issuing appends
+     * asynchronously. Achieved throughput and append latency percentiles are logged periodically, and once more at
+     * the end.
+     */
+    public void run(LoadProfile profile) throws InterruptedException {
+        profile.validate();
+        log.info("Generating load on '{}/{}': {}", scope, streamName, profile);
 
         ClientConfig clientConfig = ClientConfig.builder().controllerURI(URI.create(controllerURI.toString()))
                 //.credentials(new DefaultCredentials("1111_aaaa", "admin"))
                 .build();
 
-        StreamManager streamManager = StreamManager.create(clientConfig);
-        // create scope if not exists. This wont work when we try to create scope in nautilus. We need to use other methods to create scope on nautilus.
-        streamManager.createScope(scope);
-        StreamConfiguration streamConfig = StreamConfiguration.builder().build();
-        streamManager.createStream(scope, streamName, streamConfig);
+        try (StreamManager streamManager = StreamManager.create(clientConfig)) {
+            // create scope if not exists. This wont work when we try to create scope in nautilus. We need to use other methods to create scope on nautilus.
+            streamManager.createScope(scope);
+            StreamConfiguration streamConfig = StreamConfiguration.builder().build();
+            streamManager.createStream(scope, streamName, streamConfig);
+        }
+
+        final String[] routingKeys = new String[profile.getRoutingKeyCount()];
+        for (int i = 0; i < routingKeys.length; i++) {
+            routingKeys[i] = routingKeys.length == 1
+                    ? profile.getRoutingKeyPrefix()
+                    : profile.getRoutingKeyPrefix() + i;
+        }
+        final String padding = Strings.repeat("x", profile.getMaxPaddingBytes());
+        final Random random = new Random();
 
-        // Create client config
+        final RateLimiter pacer = RateLimiter.create(profile.getEventsPerSecond());
+        final Semaphore inFlight = new Semaphore(profile.getMaxInFlightEvents());
+        final LoadStatistics statistics = new LoadStatistics();
 
         // Create EventStreamClientFactory
-        EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
-        // Create event writer
-        EventStreamWriter<JsonNode> writer = clientFactory.createEventWriter(
-                streamName,
-                new JsonNodeSerializer(),
-                EventWriterConfig.builder().build());
-        // same data write every 1 sec
-        while (true) {
-            ObjectNode data = createJSONData();
-            writer.writeEvent(routingKey, data);
-            Thread.sleep(1000);
+        try (EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scope, clientConfig);
+             // Create event writer. Events are serialized before they are handed to it, so that their size is known.
+             EventStreamWriter<ByteBuffer> writer = clientFactory.createEventWriter(
+                     streamName,
+                     new ByteBufferSerializer(),
+                     EventWriterConfig.builder().build())) {
+
+            final long reportIntervalNanos = TimeUnit.SECONDS.toNanos(profile.getReportIntervalSeconds());
+            final long startTime = System.nanoTime();
+            final long endTime = profile.getDurationSeconds() > 0
+                    ? startTime + TimeUnit.SECONDS.toNanos(profile.getDurationSeconds())
+                    : Long.MAX_VALUE;
+            long nextReportTime = startTime + reportIntervalNanos;
+
+            while (System.nanoTime() < endTime) {
+                pacer.acquire();
+                inFlight.acquire();
+
+                int paddingBytes = profile.getMinPaddingBytes()
+                        + random.nextInt(profile.getMaxPaddingBytes() - profile.getMinPaddingBytes() + 1);
+                CompanySite data = new CompanySite(random.nextDouble(), "My Corp", 3, "India",
+                        paddingBytes == 0 ? null : padding.substring(0, paddingBytes));
+                String routingKey = routingKeys[random.nextInt(routingKeys.length)];
+
+                ByteBuffer event = SERIALIZER.serialize(data);
+                final int eventBytes = event.remaining();
+
+                final long issueTime = System.nanoTime();
+                statistics.eventIssued();
+                writer.writeEvent(routingKey, event).whenComplete((v, e) -> {
+                    inFlight.release();
+                    statistics.eventCompleted(System.nanoTime() - issueTime, eventBytes, e == null);
+                });
+
+                if (issueTime >= nextReportTime) {
+                    statistics.report(false);
+                    nextReportTime += reportIntervalNanos;
+                }
+            }
+            writer.flush();
+        } finally {
+            statistics.report(true);
         }
     }
 
     // Create a JSON data for testing purpose
     public static ObjectNode createJSONData() {
-        ObjectNode message = null;
-        try {
-            String data = "{\"id\":" + Math.random() + ",\"name\":\"My Corp\",\"building\":3,\"location\":\"India\"}";
-            // Deserialize the JSON message.
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(data);
-            message = (ObjectNode) jsonNode;
-            log.info("@@@@@@@@@@@@@ DATA >>>  " + message.toString());
-            return message;
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        ObjectNode message = OBJECT_MAPPER.createObjectNode()
+                .put("id", Math.random())
+                .put("name", "My Corp")
+                .put("building", 3)
+                .put("location", "India");
+        log.info("@@@@@@@@@@@@@ DATA >>>  " + message.toString());
         return message;
     }
 
+    /**
+     * Tracks issued and acknowledged appends, and logs throughput and append latency percentiles.
+     */
+    private static class LoadStatistics {
+
+        private final long startTime = System.nanoTime();
+        private final Recorder latencies = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+        private final Histogram totalLatencies = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        private final LongAdder issued = new LongAdder();
+        private final LongAdder acknowledged = new LongAdder();
+        private final LongAdder acknowledgedBytes = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private long lastReportTime = startTime;
+        private long lastAcknowledged = 0;
+        private long lastAcknowledgedBytes = 0;
+
+        void eventIssued() {
+            issued.increment();
+        }
+
+        void eventCompleted(long latencyNanos, int eventBytes, boolean succeeded) {
+            if (succeeded) {
+                acknowledged.increment();
+                acknowledgedBytes.add(eventBytes);
+                latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos),
+                        totalLatencies.getHighestTrackableValue()));
+            } else {
+                failed.increment();
+            }
+        }
+
+        synchronized void report(boolean isFinal) {
+            long now = System.nanoTime();
+            Histogram interval = latencies.getIntervalHistogram();
+            totalLatencies.add(interval);
+
+            long acked = acknowledged.sum();
+            long ackedBytes = acknowledgedBytes.sum();
+            Histogram histogram = isFinal ? totalLatencies : interval;
+            long since = isFinal ? startTime : lastReportTime;
+            long events = isFinal ? acked : acked - lastAcknowledged;
+            long bytes = isFinal ? ackedBytes : ackedBytes - lastAcknowledgedBytes;
+            double seconds = Math.max(1, now - since) / 1e9;
+
+            log.info("{} {} events/s, {} MB/s acknowledged ({} issued, {} acknowledged, {} failed, {} bytes); "
+                            + "append latency ms p50={} p99={} p99.9={} max={}",
+                    isFinal ? "Total:" : "Interval:",
+                    String.format("%.1f", events / seconds), String.format("%.3f", bytes / seconds / 1e6),
+                    issued.sum(), acked, failed.sum(), ackedBytes,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+
+            lastReportTime = now;
+            lastAcknowledged = acked;
+            lastAcknowledgedBytes = ackedBytes;
+        }
+
+        private static String millis(long micros) {
+            return String.format("%.2f", micros / 1000.0);
+        }
+    }
+
     public static void main(String[] args) {
-        final String scope = "test-scope2";
-        final String streamName = "test-stream";
-        final String routingKey = "test";
-        final URI controllerURI = URI.create("tcp://10.247.118.51:9090");
-                //URI.create("tcp://localhost:9090");
+        Options options = new Options();
+        options.addOption("c", "controller", true, "Controller URI (default tcp://localhost:9090)");
+        options.addOption("s", "scope", true, "Scope (default test-scope2)");
+        options.addOption("t", "stream", true, "Stream (default test-stream)");
+        options.addOption("r", "rate", true, "Target events per second (default 1)");
+        options.addOption("d", "duration", true, "Duration in seconds; 0 runs until stopped (default 0)");
+        options.addOption(null, "min-padding", true, "Minimum padding bytes per event (default 0)");
+        options.addOption(null, "max-padding", true, "Maximum padding bytes per event (default 0)");
+        options.addOption("k", "routing-keys", true, "Number of distinct routing keys (default 1)");
+        options.addOption(null, "max-in-flight", true, "Maximum outstanding appends (default 1000)");
+        options.addOption("h", "help", false, "Print this help");
+
+        CommandLine cmd;
+        try {
+            cmd = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp(JSONWriter.class.getSimpleName(), options);
+            return;
+        }
+        if (cmd.hasOption("help")) {
+            new HelpFormatter().printHelp(JSONWriter.class.getSimpleName(), options);
+            return;
+        }
+
+        final String scope = cmd.getOptionValue("scope", "test-scope2");
+        final String streamName = cmd.getOptionValue("stream", "test-stream");
+        final URI controllerURI = URI.create(cmd.getOptionValue("controller", "tcp://localhost:9090"));
+        LoadProfile profile = LoadProfile.builder()
+                .eventsPerSecond(Double.parseDouble(cmd.getOptionValue("rate", "1")))
+                .durationSeconds(Long.parseLong(cmd.getOptionValue("duration", "0")))
+                .minPaddingBytes(Integer.parseInt(cmd.getOptionValue("min-padding", "0")))
+                .maxPaddingBytes(Integer.parseInt(cmd.getOptionValue("max-padding", "0")))
+                .routingKeyCount(Integer.parseInt(cmd.getOptionValue("routing-keys", "1")))
+                .maxInFlightEvents(Integer.parseInt(cmd.getOptionValue("max-in-flight", "1000")))
+                .build();
+
         JSONWriter ew = new JSONWriter(scope, streamName, controllerURI);
         try {
-            ew.run(routingKey);
+            ew.run(profile);
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
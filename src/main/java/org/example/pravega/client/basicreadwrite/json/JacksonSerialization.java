@@ -0,0 +1,49 @@
+package org.example.pravega.client.basicreadwrite.json;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The Jackson plumbing shared by the serializers of this package, which only differ by the reader and writer they
+ * use: events are written through a thread-local {@link ReusableOutputStream}, and parsed in place.
+ */
+final class JacksonSerialization {
+
+    private static final ThreadLocal<ReusableOutputStream> OUTPUT_BUFFER =
+            ThreadLocal.withInitial(ReusableOutputStream::new);
+
+    private JacksonSerialization() {
+    }
+
+    static ByteBuffer serialize(ObjectWriter writer, Object value) {
+        ReusableOutputStream out = OUTPUT_BUFFER.get();
+        try {
+            writer.writeValue(out, value);
+            // The writer holds on to the returned buffer until the event is acknowledged, so it must not share the
+            // thread-local one.
+            return ByteBuffer.wrap(out.toByteArray());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            out.recycle();
+        }
+    }
+
+    static <T> T deserialize(ObjectReader reader, ByteBuffer serializedValue) {
+        try {
+            if (serializedValue.hasArray()) {
+                return reader.readValue(serializedValue.array(),
+                        serializedValue.arrayOffset() + serializedValue.position(),
+                        serializedValue.remaining());
+            }
+            // Direct and read-only buffers are parsed in place; a duplicate leaves the caller's position untouched.
+            return reader.readValue(new ByteBufferBackedInputStream(serializedValue.duplicate()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
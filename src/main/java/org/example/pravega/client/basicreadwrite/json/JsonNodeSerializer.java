@@ -2,44 +2,33 @@ package org.example.pravega.client.basicreadwrite.json;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.pravega.client.stream.Serializer;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 
 public class JsonNodeSerializer implements Serializer<JsonNode>, Serializable {
 
-    private final ObjectMapper objectMapper;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
 
     public JsonNodeSerializer() {
-        this.objectMapper = new ObjectMapper();
+        this(new ObjectMapper());
     }
 
     public JsonNodeSerializer(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+        this.reader = objectMapper.readerFor(JsonNode.class);
+        this.writer = objectMapper.writer();
     }
 
     @Override
     public ByteBuffer serialize(JsonNode value) {
-        try {
-            byte[] result = objectMapper.writeValueAsBytes(value);
-            return ByteBuffer.wrap(result);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return JacksonSerialization.serialize(writer, value);
     }
 
     @Override
     public JsonNode deserialize(ByteBuffer serializedValue) {
-        ByteArrayInputStream bin = new ByteArrayInputStream(serializedValue.array(),
-                serializedValue.position(),
-                serializedValue.remaining());
-        try {
-            return objectMapper.readTree(bin);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
+        return JacksonSerialization.deserialize(reader, serializedValue);
     }
 }
@@ -0,0 +1,66 @@
+package org.example.pravega.client.basicreadwrite.json;
+
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Describes the load {@link JSONWriter} generates.
+ */
+@Getter @Builder @ToString
+public class LoadProfile {
+
+    /**
+     * Target rate. Events are paced by a token bucket, so short stalls are made up for with a burst of up to one
+     * second's worth of events.
+     */
+    @Builder.Default
+    private final double eventsPerSecond = 1;
+
+    /**
+     * How long to generate load for; zero or less means until the process is stopped.
+     */
+    @Builder.Default
+    private final long durationSeconds = 0;
+
+    /**
+     * Size of the padding added to each event is drawn uniformly from [minPaddingBytes, maxPaddingBytes].
+     */
+    @Builder.Default
+    private final int minPaddingBytes = 0;
+
+    @Builder.Default
+    private final int maxPaddingBytes = 0;
+
+    /**
+     * Number of distinct routing keys; each event picks one at random.
+     */
+    @Builder.Default
+    private final int routingKeyCount = 1;
+
+    @Builder.Default
+    private final String routingKeyPrefix = "test";
+
+    /**
+     * Maximum number of appends awaiting acknowledgement. Pacing stalls once it is reached.
+     */
+    @Builder.Default
+    private final int maxInFlightEvents = 1000;
+
+    @Builder.Default
+    private final long reportIntervalSeconds = 10;
+
+    /**
+     * Checks that the profile describes a load that can be generated.
+     */
+    public LoadProfile validate() {
+        Preconditions.checkArgument(eventsPerSecond > 0, "eventsPerSecond must be positive");
+        Preconditions.checkArgument(routingKeyCount > 0, "routingKeyCount must be positive");
+        Preconditions.checkArgument(maxInFlightEvents > 0, "maxInFlightEvents must be positive");
+        Preconditions.checkArgument(minPaddingBytes <= maxPaddingBytes,
+                "minPaddingBytes must not exceed maxPaddingBytes");
+        Preconditions.checkArgument(reportIntervalSeconds > 0, "reportIntervalSeconds must be positive");
+        return this;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.pravega.client.basicreadwrite.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.pravega.client.stream.Serializer;
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Serializes objects of a given type as JSON, binding them directly to and from the JSON text without building an
+ * intermediate {@link com.fasterxml.jackson.databind.JsonNode} tree. The reader and writer for the type are resolved
+ * once, when the serializer is created.
+ *
+ * The wire format is plain JSON, so events written with this serializer can be read with {@link JsonNodeSerializer}
+ * and vice versa.
+ */
+public class PojoJsonSerializer<T> implements Serializer<T>, Serializable {
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    public PojoJsonSerializer(@NonNull Class<T> type) {
+        this(new ObjectMapper(), type);
+    }
+
+    public PojoJsonSerializer(@NonNull ObjectMapper objectMapper, @NonNull Class<T> type) {
+        this.reader = objectMapper.readerFor(type);
+        this.writer = objectMapper.writerFor(type);
+    }
+
+    @Override
+    public ByteBuffer serialize(T value) {
+        return JacksonSerialization.serialize(writer, value);
+    }
+
+    @Override
+    public T deserialize(ByteBuffer serializedValue) {
+        return JacksonSerialization.deserialize(reader, serializedValue);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.pravega.client.basicreadwrite.json;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A byte array output stream meant to be kept in a thread-local and reused across serializations.
+ */
+final class ReusableOutputStream extends ByteArrayOutputStream {
+
+    private static final int INITIAL_SIZE = 1024;
+
+    // Buffers that grew beyond this size are not kept for reuse.
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    ReusableOutputStream() {
+        super(INITIAL_SIZE);
+    }
+
+    void recycle() {
+        if (buf.length > MAX_RETAINED_SIZE) {
+            buf = new byte[INITIAL_SIZE];
+        }
+        reset();
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.pravega.client.batchclient;
+
+import io.pravega.client.stream.StreamCut;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of one tick of an {@link IncrementalBatchReader}: the part of the stream that was processed, and how
+ * far processing is behind the writers.
+ */
+@Getter @ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class BatchWindow {
+
+    private final StreamCut start;
+
+    private final StreamCut end;
+
+    private final int segmentRangeCount;
+
+    private final long eventCount;
+
+    /**
+     * Number of bytes between the start and the end of the window, which is the lag when the tick started.
+     */
+    private final long byteCount;
+
+    /**
+     * Number of bytes written past the end of the window by the time it was processed, which is the lag when the
+     * tick finished.
+     */
+    private final long remainingLagBytes;
+
+    private final long processingTimeMs;
+
+    public boolean isEmpty() {
+        return byteCount == 0;
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.pravega.client.batchclient;
+
+import com.google.common.collect.Lists;
+import io.pravega.client.BatchClientFactory;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.batch.SegmentRange;
+import io.pravega.client.stream.Serializer;
+import io.pravega.client.stream.Stream;
+import io.pravega.client.stream.StreamCut;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.example.pravega.shared.StreamCutStore;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Processes a stream in batch windows that follow its tail: each call to {@link #processNewEvents(Consumer)} reads
+ * the events written since the end of the previous window, up to the current tail of the stream, in parallel.
+ *
+ * The end of the last processed window is saved to a local file, so a new reader for the same file carries on where
+ * the previous one stopped instead of scanning the stream from its head again. The end of a window is saved only
+ * once all its events have been handed to the consumer; if processing fails, the next call processes the same
+ * window again.
+ */
+@Slf4j
+public class IncrementalBatchReader<T> implements AutoCloseable {
+
+    private final StreamManager streamManager;
+    private final BatchClientFactory batchClient;
+    private final Stream stream;
+    private final StreamCutStore streamCutStore;
+    private final ParallelBatchReader<T> reader;
+
+    public IncrementalBatchReader(@NonNull StreamManager streamManager, @NonNull BatchClientFactory batchClient,
+                                  @NonNull Stream stream, @NonNull Serializer<T> serializer,
+                                  @NonNull Path streamCutFile) {
+        this(streamManager, batchClient, stream, serializer, streamCutFile,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    public IncrementalBatchReader(@NonNull StreamManager streamManager, @NonNull BatchClientFactory batchClient,
+                                  @NonNull Stream stream, @NonNull Serializer<T> serializer,
+                                  @NonNull Path streamCutFile, int parallelism) {
+        this.streamManager = streamManager;
+        this.batchClient = batchClient;
+        this.stream = stream;
+        this.streamCutStore = new StreamCutStore(streamCutFile);
+        this.reader = new ParallelBatchReader<>(batchClient, serializer, parallelism,
+                ParallelBatchReader.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Passes every event written since the previous window to the consumer, and saves the end of the new window.
+     * The consumer is called concurrently from several threads and must be thread-safe.
+     */
+    public synchronized BatchWindow processNewEvents(@NonNull Consumer<? super T> consumer) {
+        final long startTime = System.nanoTime();
+        final StreamCut start = streamCutStore.load();
+        final StreamCut end = tailStreamCut();
+
+        List<SegmentRange> ranges = segmentRanges(start, end);
+        long byteCount = byteCount(ranges);
+        long eventCount = byteCount == 0 ? 0 : reader.read(ranges, consumer);
+        streamCutStore.save(end);
+
+        BatchWindow window = new BatchWindow(start, end, ranges.size(), eventCount, byteCount,
+                byteCount(segmentRanges(end, tailStreamCut())),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        log.info("Processed batch window of stream {}: {} events, {} bytes in {} segment ranges in {} ms; "
+                        + "{} bytes behind the tail",
+                stream.getScopedName(), window.getEventCount(), window.getByteCount(),
+                window.getSegmentRangeCount(), window.getProcessingTimeMs(), window.getRemainingLagBytes());
+        return window;
+    }
+
+    /**
+     * Returns the end of the last processed window, or {@link StreamCut#UNBOUNDED} if none has been processed yet.
+     */
+    public StreamCut lastProcessedStreamCut() {
+        return streamCutStore.load();
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+
+    private StreamCut tailStreamCut() {
+        return streamManager.getStreamInfo(stream.getScope(), stream.getStreamName()).getTailStreamCut();
+    }
+
+    private List<SegmentRange> segmentRanges(StreamCut start, StreamCut end) {
+        return Lists.newArrayList(batchClient.getSegments(stream, start, end).getIterator());
+    }
+
+    private static long byteCount(List<SegmentRange> ranges) {
+        return ranges.stream().mapToLong(range -> range.getEndOffset() - range.getStartOffset()).sum();
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.pravega.client.batchclient;
+
+import com.google.common.base.Preconditions;
+import io.pravega.client.segment.impl.Segment;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads events of a segment by ordinal, starting from the nearest offset recorded in an {@link OffsetIndex} rather
+ * than from the start of the segment.
+ */
+public class IndexedSegmentReader<T> {
+
+    private final OffsetIndex index;
+    private final SegmentScanner<T> scanner;
+
+    public IndexedSegmentReader(@NonNull OffsetIndex index, @NonNull SegmentScanner<T> scanner) {
+        this.index = index;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Returns the event with the given ordinal in the segment.
+     */
+    public T get(@NonNull Segment segment, long ordinal) {
+        return read(segment, ordinal, ordinal + 1).get(0);
+    }
+
+    /**
+     * Returns the events of the segment from ordinal {@code from}, inclusive, to ordinal {@code to}, exclusive. Both
+     * must lie in the indexed part of the segment.
+     */
+    public List<T> read(@NonNull Segment segment, long from, long to) {
+        Preconditions.checkArgument(from <= to, "from must not be after to");
+        if (from == to) {
+            return Collections.emptyList();
+        }
+        final OffsetIndex.IndexedRange indexedRange = index.locate(segment, from, to);
+        final List<T> events = new ArrayList<>((int) Math.min(to - from, SegmentScanner.DEFAULT_BUFFER_CAPACITY));
+        final long[] ordinal = {indexedRange.startOrdinal};
+        scanner.scan(Collections.singletonList(indexedRange.range), event -> {
+            if (ordinal[0] >= from) {
+                events.add(event.getEvent());
+            }
+            return ++ordinal[0] < to;
+        });
+        return events;
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.pravega.client.batchclient;
+
+import com.google.common.base.Preconditions;
+import io.pravega.client.batch.SegmentRange;
+import io.pravega.client.batch.impl.SegmentRangeImpl;
+import io.pravega.client.segment.impl.Segment;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A sparse index from event ordinals to byte offsets in segments, recorded while scanning them.
+ *
+ * For each segment the offset of every {@code interval}-th event is kept, counting from the first event scanned, so
+ * that reads of a given event, or of a run of events, can start close to it instead of at the start of the segment.
+ * The offsets also mark event boundaries, at which segment ranges can be split safely. Indexes can be saved to and
+ * loaded from a local file, and extended by later scans that carry on where the indexed part of a segment ends.
+ *
+ * Ordinals are only meaningful as long as the indexed part of a segment is not truncated.
+ */
+@Slf4j
+public class OffsetIndex {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final int interval;
+    private final Map<String, SegmentIndex> segments = new HashMap<>();
+
+    public OffsetIndex(int interval) {
+        Preconditions.checkArgument(interval > 0, "interval must be positive");
+        this.interval = interval;
+    }
+
+    public int interval() {
+        return interval;
+    }
+
+    /**
+     * Adds the given event to the index. Events of a segment must be recorded in order; events already indexed are
+     * ignored, as are events past a gap after the indexed part of their segment.
+     */
+    public synchronized void record(@NonNull ScannedEvent<?> event) {
+        SegmentRange range = event.getSegmentRange();
+        Segment segment = segmentOf(range);
+        SegmentIndex index = segments.computeIfAbsent(segment.getScopedName(),
+                name -> new SegmentIndex(segment, event.getOffset()));
+        if (event.getOffset() < index.endOffset) {
+            return;
+        }
+        if (event.getOffset() > index.endOffset) {
+            log.warn("Not indexing {} at offset {}: the index of the segment ends at offset {}",
+                    index.segment, event.getOffset(), index.endOffset);
+            return;
+        }
+        if (index.eventCount % interval == 0) {
+            index.offsets.add(event.getOffset());
+        }
+        index.eventCount++;
+        index.endOffset = event.getOffset() + event.getSize();
+    }
+
+    /**
+     * Returns the number of events indexed in the given segment.
+     */
+    public synchronized long eventCount(@NonNull Segment segment) {
+        SegmentIndex index = segments.get(segment.getScopedName());
+        return index == null ? 0 : index.eventCount;
+    }
+
+    /**
+     * Returns the smallest range that holds the events from ordinal {@code from}, inclusive, to ordinal {@code to},
+     * exclusive, and that starts and ends at indexed offsets, along with the ordinal at which it starts.
+     */
+    synchronized IndexedRange locate(@NonNull Segment segment, long from, long to) {
+        SegmentIndex index = segments.get(segment.getScopedName());
+        Preconditions.checkArgument(index != null, "Segment %s is not indexed", segment);
+        Preconditions.checkArgument(from >= 0 && from < to && to <= index.eventCount,
+                "Ordinals %s to %s are outside the %s events indexed in segment %s", from, to, index.eventCount,
+                segment);
+        int firstEntry = (int) (from / interval);
+        int lastEntry = (int) ((to + interval - 1) / interval);
+        return new IndexedRange((long) firstEntry * interval, SegmentRangeImpl.builder()
+                .segment(segment)
+                .startOffset(index.offsets.get(firstEntry))
+                .endOffset(lastEntry < index.offsets.size() ? index.offsets.get(lastEntry) : index.endOffset)
+                .build());
+    }
+
+    /**
+     * Splits the given range at indexed offsets into ranges of about {@code eventsPerSplit} events each. The part of
+     * the range that is not indexed is returned as a single range.
+     */
+    public synchronized List<SegmentRange> split(@NonNull SegmentRange range, long eventsPerSplit) {
+        Preconditions.checkArgument(eventsPerSplit > 0, "eventsPerSplit must be positive");
+        final List<SegmentRange> splits = new ArrayList<>();
+        final Segment segment = segmentOf(range);
+        final SegmentIndex index = segments.get(segment.getScopedName());
+        final long entriesPerSplit = Math.max(1, eventsPerSplit / interval);
+
+        long start = range.getStartOffset();
+        if (index != null) {
+            for (int entry = 0; entry < index.offsets.size(); entry += entriesPerSplit) {
+                long offset = index.offsets.get(entry);
+                if (offset > start && offset < range.getEndOffset()) {
+                    splits.add(SegmentRangeImpl.builder().segment(segment).startOffset(start).endOffset(offset)
+                            .build());
+                    start = offset;
+                }
+            }
+        }
+        splits.add(SegmentRangeImpl.builder().segment(segment).startOffset(start).endOffset(range.getEndOffset())
+                .build());
+        return splits;
+    }
+
+    /**
+     * Splits each of the given ranges as {@link #split(SegmentRange, long)} does.
+     */
+    public List<SegmentRange> split(@NonNull List<SegmentRange> ranges, long eventsPerSplit) {
+        final List<SegmentRange> splits = new ArrayList<>();
+        ranges.forEach(range -> splits.addAll(split(range, eventsPerSplit)));
+        return splits;
+    }
+
+    public synchronized void save(@NonNull Path file) {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(interval);
+                out.writeInt(segments.size());
+                for (SegmentIndex index : segments.values()) {
+                    out.writeUTF(index.segment.getScopedName());
+                    out.writeLong(index.eventCount);
+                    out.writeLong(index.endOffset);
+                    out.writeInt(index.offsets.size());
+                    for (long offset : index.offsets) {
+                        out.writeLong(offset);
+                    }
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved offset index of {} segments to {}", segments.size(), file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads an index saved with {@link #save(Path)}, or returns an empty index with the given interval if the file
+     * does not exist.
+     */
+    public static OffsetIndex load(@NonNull Path file, int interval) {
+        if (!Files.exists(file)) {
+            return new OffsetIndex(interval);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = in.readInt();
+            Preconditions.checkState(version == FORMAT_VERSION, "Unsupported offset index version %s in %s",
+                    version, file);
+            OffsetIndex offsetIndex = new OffsetIndex(in.readInt());
+            int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                Segment segment = Segment.fromScopedName(in.readUTF());
+                long eventCount = in.readLong();
+                long endOffset = in.readLong();
+                SegmentIndex index = new SegmentIndex(segment, endOffset);
+                index.eventCount = eventCount;
+                int offsetCount = in.readInt();
+                for (int j = 0; j < offsetCount; j++) {
+                    index.offsets.add(in.readLong());
+                }
+                offsetIndex.segments.put(segment.getScopedName(), index);
+            }
+            return offsetIndex;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Segment segmentOf(SegmentRange range) {
+        return new Segment(range.getScope(), range.getStreamName(), range.getSegmentId());
+    }
+
+    static class IndexedRange {
+
+        final long startOrdinal;
+        final SegmentRange range;
+
+        IndexedRange(long startOrdinal, SegmentRange range) {
+            this.startOrdinal = startOrdinal;
+            this.range = range;
+        }
+    }
+
+    private static class SegmentIndex {
+
+        private final Segment segment;
+        private final List<Long> offsets = new ArrayList<>();
+        private long eventCount = 0;
+        private long endOffset;
+
+        SegmentIndex(Segment segment, long startOffset) {
+            this.segment = segment;
+            this.endOffset = startOffset;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.pravega.client.batchclient;
+
+import com.google.common.base.Preconditions;
+import io.pravega.client.BatchClientFactory;
+import io.pravega.client.batch.SegmentIterator;
+import io.pravega.client.batch.SegmentRange;
+import io.pravega.client.stream.Serializer;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Reads segment ranges in parallel on a dedicated work-stealing pool and streams their events to a consumer.
+ *
+ * Each segment range is read sequentially, since a segment can only be split at event boundaries, which the batch
+ * API does not expose. What the reader of a range produces is handed on in chunks of events, which idle threads
+ * steal; so reading a range overlaps with consuming it, and a few large segments don't leave most of the work to one
+ * thread. At most a few chunks per range are in flight at a time, so segments are never buffered whole.
+ *
+ * The consumer is called concurrently from several threads and must be thread-safe. The events of one range are
+ * handed to it in order, one chunk after the other; there is no order between the events of different ranges.
+ */
+@Slf4j
+public class ParallelBatchReader<T> implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    // Number of chunks of one range that may await processing before the range's reader helps process them.
+    private static final int MAX_PENDING_CHUNKS_PER_RANGE = 4;
+
+    private final BatchClientFactory batchClient;
+    private final Serializer<T> serializer;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public ParallelBatchReader(@NonNull BatchClientFactory batchClient, @NonNull Serializer<T> serializer) {
+        this(batchClient, serializer, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelBatchReader(@NonNull BatchClientFactory batchClient, @NonNull Serializer<T> serializer,
+                               int parallelism, int chunkSize) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+        this.batchClient = batchClient;
+        this.serializer = serializer;
+        this.chunkSize = chunkSize;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Reads all the given ranges and passes every event to the consumer.
+     *
+     * @return the number of events read
+     */
+    public long read(@NonNull Collection<SegmentRange> ranges, @NonNull Consumer<? super T> consumer) {
+        final List<RangeTask> tasks = new ArrayList<>();
+        ranges.stream()
+                // Start with the largest ranges, so that the smaller ones fill in the gaps at the end.
+                .sorted(Comparator.comparingLong((SegmentRange r) -> r.getEndOffset() - r.getStartOffset())
+                        .reversed())
+                .forEach(range -> tasks.add(new RangeTask(range, consumer)));
+
+        long eventCount = pool.invoke(new RecursiveTask<Long>() {
+            @Override
+            protected Long compute() {
+                return ForkJoinTask.invokeAll(tasks).stream().mapToLong(ForkJoinTask::join).sum();
+            }
+        });
+        log.debug("Read {} events from {} segment ranges", eventCount, tasks.size());
+        return eventCount;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private class RangeTask extends RecursiveTask<Long> {
+
+        private final SegmentRange range;
+        private final Consumer<? super T> consumer;
+
+        RangeTask(SegmentRange range, Consumer<? super T> consumer) {
+            this.range = range;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected Long compute() {
+            long eventCount = 0;
+            final Deque<ChunkTask> pendingChunks = new ArrayDeque<>();
+            ChunkTask previousChunk = null;
+            try (SegmentIterator<T> iterator = batchClient.readSegment(range, serializer)) {
+                List<T> chunk = new ArrayList<>(chunkSize);
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == chunkSize) {
+                        previousChunk = new ChunkTask(chunk, previousChunk, consumer);
+                        previousChunk.fork();
+                        pendingChunks.add(previousChunk);
+                        chunk = new ArrayList<>(chunkSize);
+                        if (pendingChunks.size() > MAX_PENDING_CHUNKS_PER_RANGE) {
+                            eventCount += pendingChunks.poll().join();
+                        }
+                    }
+                }
+                if (previousChunk != null) {
+                    previousChunk.join();
+                }
+                chunk.forEach(consumer);
+                eventCount += chunk.size();
+            }
+            while (!pendingChunks.isEmpty()) {
+                eventCount += pendingChunks.poll().join();
+            }
+            log.trace("Read {} events from segment range {}", eventCount, range);
+            return eventCount;
+        }
+    }
+
+    private class ChunkTask extends RecursiveTask<Long> {
+
+        private final List<T> events;
+        // The chunk before this one in the same range, whose events must reach the consumer first.
+        private ChunkTask previous;
+        private final Consumer<? super T> consumer;
+
+        ChunkTask(List<T> events, ChunkTask previous, Consumer<? super T> consumer) {
+            this.events = events;
+            this.previous = previous;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected Long compute() {
+            if (previous != null) {
+                previous.join();
+                // Don't hold on to the events of the whole range through the chain of chunks.
+                previous = null;
+            }
+            events.forEach(consumer);
+            return (long) events.size();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.pravega.client.batchclient;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Aggregates of the events seen by a {@link SegmentScanner}, computed as they stream past.
+ */
+@Getter @ToString
+public class ScanSummary {
+
+    private long eventCount = 0;
+
+    /**
+     * Total number of bytes the events take up in their segments, including headers.
+     */
+    private long byteCount = 0;
+
+    /**
+     * Smallest offset of an event, or -1 if no event was seen.
+     */
+    private long minOffset = -1;
+
+    /**
+     * Largest offset of an event, or -1 if no event was seen.
+     */
+    private long maxOffset = -1;
+
+    ScanSummary() {
+    }
+
+    void add(ScannedEvent<?> event) {
+        eventCount++;
+        byteCount += event.getSize();
+        minOffset = minOffset < 0 ? event.getOffset() : Math.min(minOffset, event.getOffset());
+        maxOffset = Math.max(maxOffset, event.getOffset());
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.pravega.client.batchclient;
+
+import io.pravega.client.batch.SegmentRange;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * An event read by a {@link SegmentScanner}, with its position in the segment.
+ */
+@Getter @ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class ScannedEvent<T> {
+
+    private final SegmentRange segmentRange;
+
+    /**
+     * Offset of the event in its segment.
+     */
+    private final long offset;
+
+    /**
+     * Number of bytes the event takes up in the segment, including its header.
+     */
+    private final int size;
+
+    private final T event;
+}
@@ -0,0 +1,173 @@
+package org.example.pravega.client.batchclient;
+
+import com.google.common.base.Preconditions;
+import io.pravega.client.BatchClientFactory;
+import io.pravega.client.batch.SegmentIterator;
+import io.pravega.client.batch.SegmentRange;
+import io.pravega.client.stream.Serializer;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Scans segment ranges one event at a time, so that whole streams can be scanned in constant memory.
+ *
+ * Events are read ahead by a background thread into a bounded buffer, which overlaps reading with processing without
+ * holding more than a fixed number of events. A scan can be stopped early, in which case reading stops too.
+ */
+@Slf4j
+public class SegmentScanner<T> {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = 1000;
+
+    private static final Object END_OF_SCAN = new Object();
+
+    private final BatchClientFactory batchClient;
+    private final Serializer<T> serializer;
+    private final int bufferCapacity;
+
+    public SegmentScanner(@NonNull BatchClientFactory batchClient, @NonNull Serializer<T> serializer) {
+        this(batchClient, serializer, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    public SegmentScanner(@NonNull BatchClientFactory batchClient, @NonNull Serializer<T> serializer,
+                          int bufferCapacity) {
+        Preconditions.checkArgument(bufferCapacity > 0, "bufferCapacity must be positive");
+        this.batchClient = batchClient;
+        this.serializer = serializer;
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    /**
+     * Passes the events of the given ranges, in order, to the visitor until it returns false or the ranges are
+     * exhausted.
+     *
+     * @return the number of events passed to the visitor
+     */
+    @SuppressWarnings("unchecked")
+    public long scan(@NonNull Collection<SegmentRange> ranges, @NonNull Predicate<? super ScannedEvent<T>> visitor) {
+        final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        final Thread readAhead = new Thread(() -> readAhead(new ArrayList<>(ranges), buffer, stopped),
+                "segment-scanner");
+        readAhead.setDaemon(true);
+        readAhead.start();
+
+        long visitedCount = 0;
+        try {
+            while (true) {
+                Object item = buffer.take();
+                if (item == END_OF_SCAN) {
+                    break;
+                }
+                if (item instanceof ScanFailure) {
+                    throw ((ScanFailure) item).asRuntimeException();
+                }
+                visitedCount++;
+                if (!visitor.test((ScannedEvent<T>) item)) {
+                    log.debug("Scan stopped by the visitor after {} events", visitedCount);
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            stopped.set(true);
+            // Unblock the read-ahead thread, which then notices that the scan is over and closes its iterator.
+            buffer.clear();
+        }
+        return visitedCount;
+    }
+
+    /**
+     * Reads all the events of the given ranges and returns their aggregates. The events themselves are not kept.
+     */
+    public ScanSummary summarize(@NonNull Collection<SegmentRange> ranges) {
+        final ScanSummary summary = new ScanSummary();
+        scan(ranges, event -> {
+            summary.add(event);
+            return true;
+        });
+        return summary;
+    }
+
+    /**
+     * Returns at most {@code limit} events from the start of the given ranges.
+     */
+    public List<T> head(@NonNull Collection<SegmentRange> ranges, int limit) {
+        Preconditions.checkArgument(limit >= 0, "limit must not be negative");
+        final List<T> events = new ArrayList<>(Math.min(limit, bufferCapacity));
+        if (limit > 0) {
+            scan(ranges, event -> {
+                events.add(event.getEvent());
+                return events.size() < limit;
+            });
+        }
+        return events;
+    }
+
+    private void readAhead(List<SegmentRange> ranges, BlockingQueue<Object> buffer, AtomicBoolean stopped) {
+        try {
+            for (SegmentRange range : ranges) {
+                try (SegmentIterator<T> iterator = batchClient.readSegment(range, serializer)) {
+                    long offset = iterator.getOffset();
+                    while (iterator.hasNext()) {
+                        T event = iterator.next();
+                        long nextOffset = iterator.getOffset();
+                        if (!put(buffer, new ScannedEvent<>(range, offset, (int) (nextOffset - offset), event),
+                                stopped)) {
+                            return;
+                        }
+                        offset = nextOffset;
+                    }
+                }
+            }
+            put(buffer, END_OF_SCAN, stopped);
+        } catch (Throwable e) {
+            put(buffer, new ScanFailure(e), stopped);
+        }
+    }
+
+    /**
+     * Waits for room in the buffer unless the scan is stopped, and returns whether the item was added.
+     */
+    private static boolean put(BlockingQueue<Object> buffer, Object item, AtomicBoolean stopped) {
+        try {
+            while (!stopped.get()) {
+                if (buffer.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static final class ScanFailure {
+
+        private final Throwable cause;
+
+        ScanFailure(Throwable cause) {
+            this.cause = cause;
+        }
+
+        RuntimeException asRuntimeException() {
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return cause instanceof RuntimeException
+                    ? (RuntimeException) cause
+                    : new RuntimeException(cause);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import io.pravega.client.admin.StreamManager;
 import io.pravega.client.batch.SegmentIterator;
 import io.pravega.client.batch.SegmentRange;
 import io.pravega.client.control.impl.ControllerImpl;
+import io.pravega.client.segment.impl.Segment;
 import io.pravega.client.stream.EventRead;
 import io.pravega.client.stream.EventStreamReader;
 import io.pravega.client.stream.EventStreamWriter;
@@ -21,6 +22,7 @@ import io.pravega.client.stream.impl.JavaSerializer;
 import io.pravega.common.hash.RandomFactory;
 import lombok.Cleanup;
 import lombok.extern.slf4j.Slf4j;
+import org.example.pravega.client.batchclient.ParallelBatchReader;
 
 import java.io.Serializable;
 import java.util.*;
@@ -28,7 +30,6 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static io.pravega.shared.NameUtils.computeSegmentId;
@@ -124,6 +125,31 @@ class BatchClientTestHelper {
         log.info("Wrote 3 more events.");
     }
 
+    /*
+     * Create a test stream with 1 segment holding the given number of events of equal size, and return that size, so
+     * that segment ranges can be cut at event boundaries. The events are their ordinals, as zero-padded strings.
+     */
+    static long createTestStreamWithEventsOfEqualSize(ClientConfig clientConfig, String scopeName, String streamName,
+                                                      int eventCount) {
+        @Cleanup
+        StreamManager streamManager = StreamManager.create(clientConfig);
+        streamManager.createScope(scopeName);
+        streamManager.createStream(scopeName, streamName,
+                StreamConfiguration.builder().scalingPolicy(ScalingPolicy.fixed(1)).build());
+
+        @Cleanup
+        EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scopeName, clientConfig);
+        @Cleanup
+        EventStreamWriter<String> writer = clientFactory.createEventWriter(streamName, new JavaSerializer<>(),
+                EventWriterConfig.builder().build());
+        for (int i = 0; i < eventCount; i++) {
+            writer.writeEvent(String.format("%03d", i)).join();
+        }
+        long tailOffset = streamManager.getStreamInfo(scopeName, streamName).getTailStreamCut().asImpl()
+                .getPositions().get(new Segment(scopeName, streamName, 0));
+        return tailOffset / eventCount;
+    }
+
     static void writeEvents(EventStreamClientFactory clientFactory, String streamName, int totalEvents) {
         writeEvents(clientFactory, streamName, totalEvents, 0);
     }
@@ -139,17 +165,9 @@ class BatchClientTestHelper {
     }
 
     static int readFromRanges(List<SegmentRange> ranges, BatchClientFactory batchClient) {
-        List<CompletableFuture<Integer>> eventCounts = ranges
-                .parallelStream()
-                .map(range -> CompletableFuture.supplyAsync(() -> batchClient.readSegment(range, new JavaSerializer<>()))
-                        .thenApplyAsync(segmentIterator -> {
-                            log.debug("Thread " + Thread.currentThread().getId() + " reading events.");
-                            int numEvents = Lists.newArrayList(segmentIterator).size();
-                            segmentIterator.close();
-                            return numEvents;
-                        }))
-                .collect(Collectors.toList());
-        return eventCounts.stream().map(CompletableFuture::join).mapToInt(Integer::intValue).sum();
+        @Cleanup
+        ParallelBatchReader<String> reader = new ParallelBatchReader<>(batchClient, new JavaSerializer<>());
+        return Math.toIntExact(reader.read(ranges, event -> { }));
     }
 
     static <T extends Serializable> List<CompletableFuture<Integer>> readEventFutures(EventStreamClientFactory client, String rGroup, int numReaders, int limit) {
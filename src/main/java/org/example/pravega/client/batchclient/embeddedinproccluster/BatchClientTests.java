@@ -26,17 +26,24 @@ import io.pravega.client.stream.Stream;
 import io.pravega.client.stream.StreamConfiguration;
 import io.pravega.client.stream.StreamCut;
 import io.pravega.client.stream.impl.ClientFactoryImpl;
-import io.pravega.client.stream.impl.DefaultCredentials;
 import io.pravega.client.stream.impl.JavaSerializer;
 import io.pravega.client.stream.impl.StreamCutImpl;
 import io.pravega.common.concurrent.ExecutorServiceHelpers;
 import io.pravega.common.concurrent.Futures;
-import io.pravega.local.InProcPravegaCluster;
 import lombok.Cleanup;
 import lombok.extern.slf4j.Slf4j;
-import org.example.pravega.shared.StandaloneServerTlsConstants;
+import org.example.pravega.client.batchclient.IncrementalBatchReader;
+import org.example.pravega.client.batchclient.IndexedSegmentReader;
+import org.example.pravega.client.batchclient.OffsetIndex;
+import org.example.pravega.client.batchclient.ParallelBatchReader;
+import org.example.pravega.client.batchclient.ScanSummary;
+import org.example.pravega.client.batchclient.SegmentScanner;
+import org.example.pravega.inproccluster.InProcClusterFixture;
 import org.junit.*;
+
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -45,6 +52,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import static org.example.pravega.client.batchclient.embeddedinproccluster.BatchClientTestHelper.DATA_OF_SIZE_30;
 import static org.example.pravega.client.batchclient.embeddedinproccluster.BatchClientTestHelper.addEventsToStream;
 import static org.example.pravega.client.batchclient.embeddedinproccluster.BatchClientTestHelper.createTestStreamWithEvents;
+import static org.example.pravega.client.batchclient.embeddedinproccluster.BatchClientTestHelper.createTestStreamWithEventsOfEqualSize;
 import static org.example.pravega.client.batchclient.embeddedinproccluster.BatchClientTestHelper.readEventFutures;
 import static org.example.pravega.client.batchclient.embeddedinproccluster.BatchClientTestHelper.readFromRanges;
 import static org.example.pravega.client.batchclient.embeddedinproccluster.BatchClientTestHelper.validateSegmentCountAndEventCount;
@@ -57,98 +65,35 @@ public class BatchClientTests {
     boolean isAuthEnabled = false;
     boolean isTlsEnabled = false;
 
-    InProcPravegaCluster inProcCluster = null;
+    InProcClusterFixture inProcCluster = null;
 
     private final ScheduledExecutorService executor = ExecutorServiceHelpers.newScheduledThreadPool(4,
             "executor");
 
     @Before
     public void setup() throws Exception {
-        InProcPravegaCluster.InProcPravegaClusterBuilder builder = InProcPravegaCluster.builder()
-                .isInProcZK(true)
-                .zkUrl("localhost:" + 4000)
-                .zkPort(4000)
-                .isInMemStorage(true)
-                .isInProcController(true)
-                .controllerCount(1)
-                .enableRestServer(true)
-                .restServerPort(9091)
-                .isInProcSegmentStore(true)
-                .segmentStoreCount(1)
-                .containerCount(4);
-
-        if (isTlsEnabled) {
-            builder.enableTls(true)
-                    .keyFile(StandaloneServerTlsConstants.SERVER_KEY_LOCATION)
-                    .certFile(StandaloneServerTlsConstants.SERVER_CERT_LOCATION)
-                    .jksKeyFile(StandaloneServerTlsConstants.SERVER_KEYSTORE_LOCATION)
-                    .jksTrustFile(StandaloneServerTlsConstants.TRUSTSTORE_LOCATION)
-                    .keyPasswordFile(StandaloneServerTlsConstants.SERVER_KEYSTORE_PWD_LOCATION);
-        }
-
-        if (isAuthEnabled) {
-            builder.enableAuth(true)
-                    .userName("admin")
-                    .passwd("1111_aaaa")
-                    .passwdFile(StandaloneServerTlsConstants.SERVER_PASSWD_LOCATION);
-        }
-
-        inProcCluster = builder.build();
-
-        inProcCluster.setControllerPorts(new int[]{9090});
-        inProcCluster.setSegmentStorePorts(new int[]{6000});
-
-        log.info("Starting in-proc Cluster...");
-        inProcCluster.start();
-        log.info("Done starting in-proc Cluster.");
-
-        Runtime.getRuntime().addShutdownHook(new Thread() {
-            public void run() {
-                log.info("Shutdown Hook is running...");
-                try {
-                    inProcCluster.close();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
-        });
-        log.info("Application terminating...");
+        // The cluster is shared with the other test classes; each test works in a scope of its own.
+        inProcCluster = InProcClusterFixture.get(isAuthEnabled, isTlsEnabled);
     }
 
     @After
-    public void tearDown() throws Exception {
-        if (inProcCluster != null) {
-            inProcCluster.close();
-        }
+    public void tearDown() {
+        ExecutorServiceHelpers.shutdown(executor);
     }
 
     protected ClientConfig prepareClientConfig() {
-        ClientConfig.ClientConfigBuilder builder = ClientConfig.builder()
-                .controllerURI(controllerUri());
-
-        if (isTlsEnabled) {
-            builder.trustStore(StandaloneServerTlsConstants.CA_CERT_LOCATION)
-                    .validateHostName(false);
-        }
-        if (isAuthEnabled) {
-            builder.credentials(new DefaultCredentials("1111_aaaa", "admin"));
-        }
-        ClientConfig result = builder.build();
+        ClientConfig result = inProcCluster.clientConfig();
         log.debug("clientConfig: " + result);
         return result;
     }
 
     protected URI controllerUri() {
-        if (isTlsEnabled) {
-            return URI.create("tls://localhost:9090");
-        } else {
-            return URI.create("tcp://localhost:9090");
-        }
+        return inProcCluster.controllerUri();
     }
 
     @Test
     public void batchClientReadSegments() throws Exception {
-        String scopeName = "basicTestScope";
+        String scopeName = inProcCluster.uniqueScope("basicTestScope");
         String streamName = "basicTestStream";
 
         ClientConfig clientConfig = prepareClientConfig();
@@ -216,7 +161,7 @@ public class BatchClientTests {
     @Ignore
     @Test
     public void batchClientStreamCuts() {
-        String scopeName = "testscope";
+        String scopeName = inProcCluster.uniqueScope("testscope");
         String streamName = "teststream";
         String readerGroupName = "rg";
         int readerGroupParallelism = 4;
@@ -332,10 +277,191 @@ public class BatchClientTests {
         log.debug("Events correctly read from Stream: simple batch client test passed.");
     }
 
+    @Test
+    public void parallelBatchReaderReadsUnevenRanges() {
+        String scopeName = inProcCluster.uniqueScope("parallelScope");
+        String streamName = "parallelStream";
+        int eventCount = 100;
+        // Event ordinals at which the ranges start and end; the ranges are read in chunks of four events.
+        int[] boundaries = {0, 1, 6, 30, eventCount};
+        Segment segment = new Segment(scopeName, streamName, 0);
+        ClientConfig clientConfig = prepareClientConfig();
+        long eventSize = createTestStreamWithEventsOfEqualSize(clientConfig, scopeName, streamName, eventCount);
+
+        List<SegmentRange> ranges = new ArrayList<>();
+        List<List<Integer>> readByRange = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            ranges.add(SegmentRangeImpl.builder().segment(segment)
+                    .startOffset(boundaries[i] * eventSize).endOffset(boundaries[i + 1] * eventSize).build());
+            readByRange.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        @Cleanup
+        BatchClientFactory batchClient = BatchClientFactory.withScope(scopeName, clientConfig);
+        @Cleanup
+        ParallelBatchReader<String> reader = new ParallelBatchReader<>(batchClient, new JavaSerializer<>(), 4, 4);
+        long readCount = reader.read(ranges, event -> {
+            int ordinal = Integer.parseInt(event);
+            int range = 0;
+            while (ordinal >= boundaries[range + 1]) {
+                range++;
+            }
+            readByRange.get(range).add(ordinal);
+        });
+
+        assertEquals(eventCount, readCount);
+        for (int i = 0; i < ranges.size(); i++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int ordinal = boundaries[i]; ordinal < boundaries[i + 1]; ordinal++) {
+                expected.add(ordinal);
+            }
+            assertEquals("Events of range " + i + " read once, in order", expected, readByRange.get(i));
+        }
+    }
+
+    @Test
+    public void segmentScannerStopsEarlyAndSummarizes() {
+        String scopeName = inProcCluster.uniqueScope("scannerScope");
+        String streamName = "scannerStream";
+        int eventCount = 20;
+        Segment segment = new Segment(scopeName, streamName, 0);
+        ClientConfig clientConfig = prepareClientConfig();
+        long eventSize = createTestStreamWithEventsOfEqualSize(clientConfig, scopeName, streamName, eventCount);
+        List<SegmentRange> wholeSegment = Collections.singletonList(SegmentRangeImpl.builder().segment(segment)
+                .startOffset(0).endOffset(eventCount * eventSize).build());
+
+        @Cleanup
+        BatchClientFactory batchClient = BatchClientFactory.withScope(scopeName, clientConfig);
+        // A buffer much smaller than the segment, so that reading ahead has to wait for the visitor.
+        SegmentScanner<String> scanner = new SegmentScanner<>(batchClient, new JavaSerializer<>(), 2);
+
+        List<String> visited = new ArrayList<>();
+        assertEquals(eventCount, scanner.scan(wholeSegment, event -> visited.add(event.getEvent())));
+        assertEquals(eventCount, visited.size());
+        assertEquals("019", visited.get(eventCount - 1));
+
+        // The visitor stops the scan at the fifth event.
+        visited.clear();
+        assertEquals(5, scanner.scan(wholeSegment, event -> {
+            visited.add(event.getEvent());
+            return visited.size() < 5;
+        }));
+        assertEquals(Arrays.asList("000", "001", "002", "003", "004"), visited);
+        assertEquals(Arrays.asList("000", "001", "002"), scanner.head(wholeSegment, 3));
+
+        // The aggregates of events 2 to 11.
+        ScanSummary summary = scanner.summarize(Collections.singletonList(SegmentRangeImpl.builder()
+                .segment(segment).startOffset(2 * eventSize).endOffset(12 * eventSize).build()));
+        assertEquals(10, summary.getEventCount());
+        assertEquals(10 * eventSize, summary.getByteCount());
+        assertEquals(2 * eventSize, summary.getMinOffset());
+        assertEquals(11 * eventSize, summary.getMaxOffset());
+    }
+
+    @Test
+    public void offsetIndexReadsAndSplitsAtIndexedOffsets() throws Exception {
+        String scopeName = inProcCluster.uniqueScope("offsetIndexScope");
+        String streamName = "offsetIndexStream";
+        int eventCount = 30;
+        int indexedEventCount = 20;
+        Segment segment = new Segment(scopeName, streamName, 0);
+        ClientConfig clientConfig = prepareClientConfig();
+        long eventSize = createTestStreamWithEventsOfEqualSize(clientConfig, scopeName, streamName, eventCount);
+
+        @Cleanup
+        BatchClientFactory batchClient = BatchClientFactory.withScope(scopeName, clientConfig);
+        SegmentScanner<String> scanner = new SegmentScanner<>(batchClient, new JavaSerializer<>());
+
+        // Index every fourth event of the first part of the segment, and reload the index from a file.
+        OffsetIndex offsetIndex = new OffsetIndex(4);
+        scanner.scan(Collections.singletonList(SegmentRangeImpl.builder().segment(segment)
+                .startOffset(0).endOffset(indexedEventCount * eventSize).build()), event -> {
+            offsetIndex.record(event);
+            return true;
+        });
+        Path indexFile = Files.createTempDirectory("offset-index").resolve("index");
+        offsetIndex.save(indexFile);
+        OffsetIndex savedIndex = OffsetIndex.load(indexFile, 1);
+        assertEquals(4, savedIndex.interval());
+        assertEquals(indexedEventCount, savedIndex.eventCount(segment));
+
+        // Read events by ordinal, starting at the nearest indexed offset.
+        IndexedSegmentReader<String> indexedReader = new IndexedSegmentReader<>(savedIndex, scanner);
+        assertEquals("013", indexedReader.get(segment, 13));
+        assertEquals(Arrays.asList("005", "006", "007", "008", "009", "010"), indexedReader.read(segment, 5, 11));
+
+        // Splits of eight events start at indexed offsets; the part past the index is left in one piece.
+        List<SegmentRange> splits = savedIndex.split(SegmentRangeImpl.builder().segment(segment)
+                .startOffset(0).endOffset(eventCount * eventSize).build(), 8);
+        int[] boundaries = {0, 8, 16, eventCount};
+        assertEquals(boundaries.length - 1, splits.size());
+        for (int i = 0; i < splits.size(); i++) {
+            SegmentRange split = splits.get(i);
+            assertEquals(boundaries[i] * eventSize, split.getStartOffset());
+            assertEquals(boundaries[i + 1] * eventSize, split.getEndOffset());
+
+            List<String> expected = new ArrayList<>();
+            for (int ordinal = boundaries[i]; ordinal < boundaries[i + 1]; ordinal++) {
+                expected.add(String.format("%03d", ordinal));
+            }
+            assertEquals("Events of split " + i, expected, scanner.head(Collections.singletonList(split),
+                    Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void incrementalBatchReaderResumesFromSavedStreamCut() throws Exception {
+        String scopeName = inProcCluster.uniqueScope("incrementalScope");
+        String streamName = "incrementalStream";
+        int eventsPerWindow = 10;
+        Stream stream = Stream.of(scopeName, streamName);
+        ClientConfig clientConfig = prepareClientConfig();
+
+        @Cleanup
+        StreamManager streamManager = StreamManager.create(clientConfig);
+        streamManager.createScope(scopeName);
+        streamManager.createStream(scopeName, streamName,
+                StreamConfiguration.builder().scalingPolicy(ScalingPolicy.fixed(2)).build());
+
+        @Cleanup
+        EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(scopeName, clientConfig);
+        @Cleanup
+        BatchClientFactory batchClientFactory = BatchClientFactory.withScope(scopeName, clientConfig);
+
+        Path streamCutFile = Files.createTempDirectory("batch-windows").resolve("stream-cut");
+        List<String> read = Collections.synchronizedList(new ArrayList<>());
+
+        // A few windows with a first reader, the last of which has nothing new to read.
+        try (IncrementalBatchReader<String> reader = new IncrementalBatchReader<>(streamManager,
+                batchClientFactory, stream, new JavaSerializer<>(), streamCutFile, 2)) {
+            for (int i = 0; i < 2; i++) {
+                writeEvents(clientFactory, streamName, eventsPerWindow, i * eventsPerWindow);
+                assertEquals(eventsPerWindow, reader.processNewEvents(read::add).getEventCount());
+            }
+            assertEquals(0, reader.processNewEvents(read::add).getEventCount());
+        }
+
+        // A new reader for the same file only reads what was written since the first one stopped.
+        writeEvents(clientFactory, streamName, eventsPerWindow, 2 * eventsPerWindow);
+        try (IncrementalBatchReader<String> reader = new IncrementalBatchReader<>(streamManager,
+                batchClientFactory, stream, new JavaSerializer<>(), streamCutFile, 2)) {
+            assertEquals(eventsPerWindow, reader.processNewEvents(read::add).getEventCount());
+            assertEquals(0, reader.processNewEvents(read::add).getEventCount());
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 3 * eventsPerWindow; i++) {
+            expected.add(String.valueOf(i));
+        }
+        List<String> actual = new ArrayList<>(read);
+        actual.sort(Comparator.comparingInt(Integer::parseInt));
+        assertEquals("Every event read exactly once", expected, actual);
+    }
+
     @Test
     @SuppressWarnings("deprecation")
     public void testBatchClientWithStreamTruncation() throws Exception {
-        String scopeName = "testScope";
+        String scopeName = inProcCluster.uniqueScope("testScope");
         String streamName = "testStream";
         Stream stream = Stream.of(scopeName, streamName);
 
@@ -382,7 +508,7 @@ public class BatchClientTests {
     @Ignore
     @Test
     public void test() throws ExecutionException, InterruptedException {
-        String scopeName = "tscopeName";
+        String scopeName = inProcCluster.uniqueScope("tscopeName");
         String streamName = "tscopeName";
         Stream stream = Stream.of(scopeName, streamName);
         Serializer<String> serializer = new JavaSerializer<String>();
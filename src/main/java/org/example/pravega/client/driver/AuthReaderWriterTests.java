@@ -1,5 +1,6 @@
 package org.example.pravega.client.driver;
 
+import lombok.Cleanup;
 import lombok.extern.slf4j.Slf4j;
 import org.example.pravega.client.driver.common.Reader;
 import org.example.pravega.client.driver.common.Writer;
@@ -19,6 +20,7 @@ public class AuthReaderWriterTests {
         String routingKey = "testRoutingKeyAuth";
         log.info("Controller Uri: {}", controllerUri);
 
+        @Cleanup
         Writer writer = new Writer(scope, streamName, URI.create(controllerUri),
                 "random", "random");
         writer.writeEvent(routingKey, "whatever");
@@ -32,6 +34,7 @@ public class AuthReaderWriterTests {
         String routingKey = "testRoutingKeyAuth";
         log.info("Controller Uri: {}", controllerUri);
 
+        @Cleanup
         Writer writer = new Writer(scope, streamName, URI.create(controllerUri),
                 "admin", "1111_aaaa");
 
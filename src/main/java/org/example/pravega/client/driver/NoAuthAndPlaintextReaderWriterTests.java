@@ -1,6 +1,15 @@
 package org.example.pravega.client.driver;
 
+import com.google.common.util.concurrent.Uninterruptibles;
+import lombok.Cleanup;
 import lombok.extern.slf4j.Slf4j;
+import org.example.pravega.client.driver.common.BatchWriteResult;
+import org.example.pravega.client.driver.common.Event;
+import org.example.pravega.client.driver.common.EventProcessor;
+import org.example.pravega.client.driver.common.EventProcessorConfig;
+import org.example.pravega.client.driver.common.LoggingMetricsReporter;
+import org.example.pravega.client.driver.common.MetricsExporter;
+import org.example.pravega.client.driver.common.MetricsSnapshot;
 import org.example.pravega.client.driver.common.Reader;
 import org.example.pravega.client.driver.common.Writer;
 import org.junit.Test;
@@ -8,10 +17,29 @@ import org.junit.Test;
 import org.example.pravega.shared.EnvironmentProperties;
 
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @Slf4j
 public class NoAuthAndPlaintextReaderWriterTests {
 
+    private static final long PROCESSING_TIMEOUT_MS = 30000;
+
     @Test
     public void writeEventsThenReadAndPrintThem() {
         String controllerUri = EnvironmentProperties.defaultControllerUri();
@@ -20,6 +48,7 @@ public class NoAuthAndPlaintextReaderWriterTests {
         String routingKey = "testRoutingKey";
         log.info("Controller Uri: {}", controllerUri);
 
+        @Cleanup
         Writer writer = new Writer(scope, streamName, URI.create(controllerUri));
 
         String message1 = "message 1";
@@ -35,4 +64,288 @@ public class NoAuthAndPlaintextReaderWriterTests {
         Reader reader = new Reader(scope, streamName, URI.create(controllerUri));
         reader.readAndPrintAllEvents();
     }
+
+    @Test(expected = IllegalStateException.class)
+    public void writeAfterCloseFails() {
+        String controllerUri = EnvironmentProperties.defaultControllerUri();
+        String scope = "org.example";
+        String streamName = "testStreamClosed";
+        log.info("Controller Uri: {}", controllerUri);
+
+        Writer writer = new Writer(scope, streamName, URI.create(controllerUri));
+        writer.writeEvent("testRoutingKey", "message 1");
+        writer.close();
+        writer.writeEvent("testRoutingKey", "message 2");
+    }
+
+    @Test
+    public void writeEventsAsynchronouslyThenReadAndPrintThem() {
+        String controllerUri = EnvironmentProperties.defaultControllerUri();
+        String scope = "org.example";
+        String streamName = "testStreamAsync";
+        String routingKey = "testRoutingKey";
+        int numEvents = 1000;
+        log.info("Controller Uri: {}", controllerUri);
+
+        @Cleanup
+        Writer writer = new Writer(scope, streamName, URI.create(controllerUri))
+                .maxInFlightEvents(100);
+
+        List<CompletableFuture<Void>> writeFutures = new ArrayList<>();
+        for (int i = 0; i < numEvents; i++) {
+            writeFutures.add(writer.writeEventAsync(routingKey, "message " + i));
+        }
+        writer.flush();
+        CompletableFuture.allOf(writeFutures.toArray(new CompletableFuture<?>[0])).join();
+        log.info("Done writing {} messages with routing-key: '{}' to stream '{} / {}'",
+                numEvents, routingKey, scope, streamName);
+
+        Reader reader = new Reader(scope, streamName, URI.create(controllerUri));
+        reader.readAndPrintAllEvents();
+    }
+
+    @Test
+    public void writeEventsInABatchThenReadAndPrintThem() {
+        String controllerUri = EnvironmentProperties.defaultControllerUri();
+        String scope = "org.example";
+        String streamName = "testStreamBatch";
+        int numEvents = 1000;
+        log.info("Controller Uri: {}", controllerUri);
+
+        @Cleanup
+        Writer writer = new Writer(scope, streamName, URI.create(controllerUri));
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < numEvents; i++) {
+            events.add(new Event("testRoutingKey" + (i % 10), "message " + i));
+        }
+        BatchWriteResult result = writer.writeEvents(events).join();
+        assertTrue("Failed events: " + result.failures(), result.isSuccessful());
+        log.info("Done writing {} messages to stream '{} / {}'", result.successCount(), scope, streamName);
+
+        Reader reader = new Reader(scope, streamName, URI.create(controllerUri));
+        reader.readAndPrintAllEvents();
+    }
+
+    @Test
+    public void writeEventsThenProcessThemInBatches() throws InterruptedException {
+        String controllerUri = EnvironmentProperties.defaultControllerUri();
+        String scope = "org.example";
+        String streamName = "testStreamProcessor" + System.currentTimeMillis();
+        String routingKey = "testRoutingKey";
+        int numEvents = 100;
+        log.info("Controller Uri: {}", controllerUri);
+
+        @Cleanup
+        Writer writer = new Writer(scope, streamName, URI.create(controllerUri));
+        writeEvents(writer, routingKey, 0, numEvents);
+
+        AtomicInteger eventsProcessed = new AtomicInteger();
+        Reader reader = new Reader(scope, streamName, URI.create(controllerUri));
+        @Cleanup
+        EventProcessor processor = reader.startProcessing(
+                EventProcessorConfig.builder().maxBatchSize(10).maxBatchLatencyMs(50).build(),
+                batch -> {
+                    log.info("Processing a batch of {} events, starting with '{}'", batch.size(), batch.get(0));
+                    eventsProcessed.addAndGet(batch.size());
+                });
+        awaitEvents(eventsProcessed::get, numEvents);
+        assertEquals(numEvents, eventsProcessed.get());
+    }
+
+    @Test
+    public void writeEventsThenProcessThemWithAReaderPerSegment() throws InterruptedException {
+        String controllerUri = EnvironmentProperties.defaultControllerUri();
+        String scope = "org.example";
+        String streamName = "testStreamProcessorPool" + System.currentTimeMillis();
+        int numSegments = 4;
+        int numRoutingKeys = 10;
+        int numEvents = 1000;
+        log.info("Controller Uri: {}", controllerUri);
+
+        @Cleanup
+        Writer writer = new Writer(scope, streamName, URI.create(controllerUri)).segmentCount(numSegments);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < numEvents; i++) {
+            events.add(new Event("testRoutingKey" + (i % numRoutingKeys), (i % numRoutingKeys) + ":" + i));
+        }
+        BatchWriteResult result = writer.writeEvents(events).join();
+        assertTrue("Failed events: " + result.failures(), result.isSuccessful());
+
+        // The last sequence number seen for each routing key; events of one routing key live in one segment, so
+        // they must reach the handler in the order they were written.
+        Map<String, Integer> lastSequenceNumbers = new ConcurrentHashMap<>();
+        List<String> outOfOrder = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger eventsProcessed = new AtomicInteger();
+        Reader reader = new Reader(scope, streamName, URI.create(controllerUri));
+        try (EventProcessor processor = reader.startProcessing(
+                EventProcessorConfig.builder().readerCount(EventProcessorConfig.AUTO_READER_COUNT).build(),
+                batch -> {
+                    for (String message : batch) {
+                        String[] keyAndSequenceNumber = message.split(":");
+                        int sequenceNumber = Integer.parseInt(keyAndSequenceNumber[1]);
+                        Integer previous = lastSequenceNumbers.put(keyAndSequenceNumber[0], sequenceNumber);
+                        if (previous != null && previous >= sequenceNumber) {
+                            outOfOrder.add(message);
+                        }
+                    }
+                    eventsProcessed.addAndGet(batch.size());
+                })) {
+            awaitEvents(eventsProcessed::get, numEvents);
+            log.info("Processed {} events with {} readers", eventsProcessed.get(), processor.readerCount());
+            assertEquals(numSegments, processor.readerCount());
+        }
+        assertEquals(numEvents, eventsProcessed.get());
+        assertEquals(numRoutingKeys, lastSequenceNumbers.size());
+        assertTrue("Events out of order: " + outOfOrder, outOfOrder.isEmpty());
+    }
+
+    @Test
+    public void processEventsThenResumeFromTheLastCheckpoint() throws Exception {
+        String controllerUri = EnvironmentProperties.defaultControllerUri();
+        String scope = "org.example";
+        String streamName = "testStreamDurable" + System.currentTimeMillis();
+        String routingKey = "testRoutingKey";
+        Path streamCutFile = Files.createTempDirectory("reader-group").resolve("stream-cut");
+        EventProcessorConfig config = EventProcessorConfig.builder()
+                .readerGroupName("durableGroup" + System.currentTimeMillis())
+                .checkpointIntervalMs(1000)
+                .streamCutFile(streamCutFile)
+                .build();
+        log.info("Controller Uri: {}", controllerUri);
+
+        @Cleanup
+        Writer writer = new Writer(scope, streamName, URI.create(controllerUri));
+        Reader reader = new Reader(scope, streamName, URI.create(controllerUri));
+        AtomicInteger eventsProcessed = new AtomicInteger();
+
+        writeEvents(writer, routingKey, 0, 100);
+        processEvents(reader, config, eventsProcessed, 100);
+        assertEquals(100, eventsProcessed.get());
+        log.info("Saved the reader group position to {}", streamCutFile);
+
+        // A processor restarted with the same reader group only sees the events written since.
+        writeEvents(writer, routingKey, 100, 150);
+        eventsProcessed.set(0);
+        processEvents(reader, config, eventsProcessed, 50);
+        assertEquals(50, eventsProcessed.get());
+    }
+
+    @Test
+    public void abandonAProcessorThenResumeWithoutLosingEvents() throws Exception {
+        String controllerUri = EnvironmentProperties.defaultControllerUri();
+        String scope = "org.example";
+        String streamName = "testStreamAbandoned" + System.currentTimeMillis();
+        String routingKey = "testRoutingKey";
+        int numEvents = 200;
+        EventProcessorConfig config = EventProcessorConfig.builder()
+                .readerGroupName("abandonedGroup" + System.currentTimeMillis())
+                .maxBatchSize(10)
+                .readTimeoutMs(500)
+                .checkpointIntervalMs(200)
+                .build();
+        log.info("Controller Uri: {}", controllerUri);
+
+        @Cleanup
+        Writer writer = new Writer(scope, streamName, URI.create(controllerUri));
+        writeEvents(writer, routingKey, 0, numEvents);
+        Reader reader = new Reader(scope, streamName, URI.create(controllerUri));
+        Set<String> handled = ConcurrentHashMap.newKeySet();
+
+        // The first processor handles batches slowly, so that the readers run ahead of it and checkpoints are taken
+        // while events wait in its queue, and then hangs, like a process that is killed.
+        CountDownLatch abandoned = new CountDownLatch(1);
+        EventProcessor hungProcessor = reader.startProcessing(config, batch -> {
+            if (handled.size() >= numEvents / 4) {
+                Uninterruptibles.awaitUninterruptibly(abandoned);
+                throw new IllegalStateException("Abandoned processor");
+            }
+            handled.addAll(batch);
+            Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+        });
+        try {
+            awaitEvents(handled::size, numEvents / 4);
+            // Gives its readers time to come to the next checkpoint, where they wait for the hung handler.
+            Thread.sleep(2000);
+            log.info("Abandoning a processor after it handled {} events", handled.size());
+
+            // The second processor takes over from the last checkpoint, which only covers events that were handled.
+            try (EventProcessor processor = reader.startProcessing(config, handled::addAll)) {
+                awaitEvents(handled::size, numEvents);
+                log.info("Resumed with {} readers", processor.readerCount());
+            }
+            assertEquals(numEvents, handled.size());
+        } finally {
+            abandoned.countDown();
+            hungProcessor.close();
+        }
+    }
+
+    @Test
+    public void writeAndProcessEventsWhileExportingMetrics() throws InterruptedException {
+        String controllerUri = EnvironmentProperties.defaultControllerUri();
+        String scope = "org.example";
+        String streamName = "testStreamMetrics" + System.currentTimeMillis();
+        String routingKey = "testRoutingKey";
+        int numEvents = 1000;
+        log.info("Controller Uri: {}", controllerUri);
+
+        @Cleanup
+        MetricsExporter exporter = new MetricsExporter(Duration.ofSeconds(1), new LoggingMetricsReporter());
+        @Cleanup
+        Writer writer = new Writer(scope, streamName, URI.create(controllerUri));
+        Reader reader = new Reader(scope, streamName, URI.create(controllerUri));
+        exporter.export(writer.metrics());
+        exporter.export(reader.metrics());
+
+        writeEvents(writer, routingKey, 0, numEvents);
+        assertEquals(numEvents, writer.metrics().getEventCount());
+        assertEquals(0, writer.metrics().getInFlight());
+        assertTrue(writer.metrics().getByteCount() > 0);
+
+        AtomicInteger eventsProcessed = new AtomicInteger();
+        @Cleanup
+        EventProcessor processor = reader.startProcessing(batch -> eventsProcessed.addAndGet(batch.size()));
+        awaitEvents(eventsProcessed::get, numEvents);
+        assertEquals(numEvents, eventsProcessed.get());
+        assertEquals(numEvents, reader.metrics().getEventCount());
+        assertEquals(0, reader.metrics().getInFlight());
+        assertTrue(reader.metrics().getByteCount() >= writer.metrics().getByteCount());
+
+        // The processor idles once it has read everything, so the readers of the last interval mostly find nothing.
+        MetricsSnapshot snapshot = reader.metrics().snapshot();
+        log.info("Last reader interval: {}", snapshot);
+        assertTrue(snapshot.reads() == 0 || snapshot.emptyReadRatio() > 0);
+    }
+
+    /**
+     * Writes "message from" up to "message to", and fails if any of the writes does.
+     */
+    private static void writeEvents(Writer writer, String routingKey, int from, int to) {
+        List<CompletableFuture<Void>> writeFutures = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            writeFutures.add(writer.writeEventAsync(routingKey, "message " + i));
+        }
+        CompletableFuture.allOf(writeFutures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Counts the events of a processor until it has seen the expected number, and then closes it.
+     */
+    private static void processEvents(Reader reader, EventProcessorConfig config, AtomicInteger eventsProcessed,
+                                      int expected) throws InterruptedException {
+        @Cleanup
+        EventProcessor processor = reader.startProcessing(config, batch -> eventsProcessed.addAndGet(batch.size()));
+        awaitEvents(eventsProcessed::get, expected);
+    }
+
+    /**
+     * Waits until the handler has seen the expected number of events, or gives up after a while.
+     */
+    private static void awaitEvents(IntSupplier eventsProcessed, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + PROCESSING_TIMEOUT_MS;
+        while (eventsProcessed.getAsInt() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+    }
 }
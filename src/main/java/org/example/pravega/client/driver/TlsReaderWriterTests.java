@@ -1,5 +1,6 @@
 package org.example.pravega.client.driver;
 
+import lombok.Cleanup;
 import lombok.extern.slf4j.Slf4j;
 import org.example.pravega.client.driver.common.Reader;
 import org.example.pravega.client.driver.common.Writer;
@@ -24,6 +25,7 @@ public class TlsReaderWriterTests {
         String trustStoreFilePath = StandaloneServerTlsConstants.CA_CERT_LOCATION;
 
         // Write events to stream
+        @Cleanup
         Writer writer = new Writer(scope, streamName, URI.create(controllerUri), trustStoreFilePath);
 
         String message1 = "message 1";
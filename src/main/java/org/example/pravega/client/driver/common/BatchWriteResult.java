@@ -0,0 +1,46 @@
+package org.example.pravega.client.driver.common;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a batch write: the number of events that were submitted and the events that could not be written.
+ */
+@Accessors(fluent = true) @Getter @ToString
+public class BatchWriteResult {
+
+    private final int eventCount;
+    private final List<Failure> failures;
+
+    BatchWriteResult(int eventCount, List<Failure> failures) {
+        this.eventCount = eventCount;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    public int successCount() {
+        return eventCount - failures.size();
+    }
+
+    @Accessors(fluent = true) @Getter @ToString
+    public static class Failure {
+
+        /** Position of the event in the collection passed to the writer. */
+        private final int index;
+        private final Event event;
+        private final Throwable cause;
+
+        Failure(int index, Event event, Throwable cause) {
+            this.index = index;
+            this.event = event;
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package org.example.pravega.client.driver.common;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the events that go through a {@link Writer} or a {@link Reader}, and how long they take.
+ *
+ * For a writer, the latency is the time from issuing an append to its acknowledgement, the events in flight are the
+ * appends awaiting acknowledgement, and the blocked time is spent waiting for the in-flight window to open. For a
+ * reader, the latency is the time a read took to return an event, the events in flight are those read but not yet
+ * handed to the handler of an {@link EventProcessor}, and the blocked time is spent waiting for the handler to catch
+ * up. Reads that time out without an event are counted apart, along with the time they took.
+ *
+ * Read together, they tell where a slow pipeline waits: writers that are blocked with a full window wait on the
+ * network or the segment store; readers that are mostly idle wait on the writers; readers that are blocked wait on
+ * their handler.
+ *
+ * Recording an event only adds to counters and to a latency {@link Recorder}, and allocates nothing. The rates and
+ * percentiles are computed over the interval between two calls to {@link #snapshot()}, which a
+ * {@link MetricsExporter} makes periodically; the JMX attributes show the totals so far and the last snapshot.
+ */
+@Accessors(fluent = true)
+public class ClientMetrics implements ClientMetricsMXBean {
+
+    public enum Type {
+        WRITER,
+        READER
+    }
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    @Getter
+    private final Type type;
+    @Getter
+    private final String name;
+    @Getter
+    private final ObjectName objectName;
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder emptyReads = new LongAdder();
+    private final LongAdder emptyReadNanos = new LongAdder();
+    private final Recorder latencies = new Recorder(HIGHEST_LATENCY_MICROS, 3);
+
+    private Histogram intervalLatencies = null;
+    private long lastSnapshotTime = System.nanoTime();
+    private long lastEvents, lastBytes, lastFailures, lastBlockedNanos, lastReads, lastReadNanos, lastEmptyReads,
+            lastEmptyReadNanos;
+    private volatile MetricsSnapshot lastSnapshot;
+
+    ClientMetrics(Type type, String scope, String streamName) {
+        int id = NEXT_ID.incrementAndGet();
+        this.type = type;
+        this.name = String.format("%s %s/%s #%d", type.name().toLowerCase(), scope, streamName, id);
+        try {
+            this.objectName = new ObjectName(String.format("org.example.pravega:type=%s,scope=%s,stream=%s,id=%d",
+                    type.name().toLowerCase(), ObjectName.quote(scope), ObjectName.quote(streamName), id));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+        this.lastSnapshot = MetricsSnapshot.builder().name(name).type(type).build();
+    }
+
+    void appendIssued() {
+        inFlight.increment();
+    }
+
+    void appendCompleted(long startNanos, int byteCount, boolean succeeded) {
+        inFlight.decrement();
+        if (succeeded) {
+            events.increment();
+            bytes.add(byteCount);
+            recordLatency(System.nanoTime() - startNanos);
+        } else {
+            failures.increment();
+        }
+    }
+
+    void readCompleted(long nanos, boolean empty) {
+        reads.increment();
+        readNanos.add(nanos);
+        if (empty) {
+            emptyReads.increment();
+            emptyReadNanos.add(nanos);
+        } else {
+            events.increment();
+            recordLatency(nanos);
+        }
+    }
+
+    void queued() {
+        inFlight.increment();
+    }
+
+    void dequeued(int count) {
+        inFlight.add(-count);
+    }
+
+    void blocked(long nanos) {
+        blockedNanos.add(nanos);
+    }
+
+    /**
+     * Counts the bytes of an event deserialized after a read. The bytes of an append are counted once it is
+     * acknowledged, by {@link #appendCompleted}.
+     */
+    void bytes(int count) {
+        bytes.add(count);
+    }
+
+    private void recordLatency(long nanos) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_LATENCY_MICROS));
+    }
+
+    /**
+     * Computes the rates and latency percentiles since the previous snapshot.
+     */
+    public synchronized MetricsSnapshot snapshot() {
+        final long now = System.nanoTime();
+        final double seconds = Math.max(1, now - lastSnapshotTime) / 1e9;
+        intervalLatencies = latencies.getIntervalHistogram(intervalLatencies);
+
+        final long events = this.events.sum();
+        final long bytes = this.bytes.sum();
+        final long failures = this.failures.sum();
+        final long blockedNanos = this.blockedNanos.sum();
+        final long reads = this.reads.sum();
+        final long readNanos = this.readNanos.sum();
+        final long emptyReads = this.emptyReads.sum();
+        final long emptyReadNanos = this.emptyReadNanos.sum();
+
+        lastSnapshot = MetricsSnapshot.builder()
+                .name(name)
+                .type(type)
+                .intervalSeconds(seconds)
+                .events(events - lastEvents)
+                .eventsPerSecond((events - lastEvents) / seconds)
+                .bytesPerSecond((bytes - lastBytes) / seconds)
+                .failures(failures - lastFailures)
+                .inFlight(inFlight.sum())
+                .latencyP50Micros(intervalLatencies.getValueAtPercentile(50))
+                .latencyP99Micros(intervalLatencies.getValueAtPercentile(99))
+                .latencyP999Micros(intervalLatencies.getValueAtPercentile(99.9))
+                .latencyMaxMicros(intervalLatencies.getMaxValue())
+                .blockedSecondsPerSecond((blockedNanos - lastBlockedNanos) / 1e9 / seconds)
+                .reads(reads - lastReads)
+                .emptyReadRatio(ratio(emptyReads - lastEmptyReads, reads - lastReads))
+                .idleRatio(ratio(emptyReadNanos - lastEmptyReadNanos, readNanos - lastReadNanos))
+                .build();
+
+        lastSnapshotTime = now;
+        lastEvents = events;
+        lastBytes = bytes;
+        lastFailures = failures;
+        lastBlockedNanos = blockedNanos;
+        lastReads = reads;
+        lastReadNanos = readNanos;
+        lastEmptyReads = emptyReads;
+        lastEmptyReadNanos = emptyReadNanos;
+        return lastSnapshot;
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole > 0 ? (double) part / whole : Double.NaN;
+    }
+
+    /**
+     * Returns the last snapshot taken, or an empty one if none was.
+     */
+    public MetricsSnapshot lastSnapshot() {
+        return lastSnapshot;
+    }
+
+    @Override
+    public long getEventCount() {
+        return events.sum();
+    }
+
+    @Override
+    public long getByteCount() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        return lastSnapshot.eventsPerSecond();
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return lastSnapshot.bytesPerSecond();
+    }
+
+    @Override
+    public long getLatencyP50Micros() {
+        return lastSnapshot.latencyP50Micros();
+    }
+
+    @Override
+    public long getLatencyP99Micros() {
+        return lastSnapshot.latencyP99Micros();
+    }
+
+    @Override
+    public long getLatencyP999Micros() {
+        return lastSnapshot.latencyP999Micros();
+    }
+
+    @Override
+    public long getLatencyMaxMicros() {
+        return lastSnapshot.latencyMaxMicros();
+    }
+
+    @Override
+    public double getBlockedSecondsPerSecond() {
+        return lastSnapshot.blockedSecondsPerSecond();
+    }
+
+    @Override
+    public double getEmptyReadRatio() {
+        return lastSnapshot.emptyReadRatio();
+    }
+
+    @Override
+    public double getIdleRatio() {
+        return lastSnapshot.idleRatio();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.pravega.client.driver.common;
+
+/**
+ * JMX view of {@link ClientMetrics}. The counts are totals since the client was created; the rates, latencies and
+ * ratios are those of the last snapshot.
+ */
+public interface ClientMetricsMXBean {
+
+    long getEventCount();
+
+    long getByteCount();
+
+    long getFailureCount();
+
+    long getInFlight();
+
+    double getEventsPerSecond();
+
+    double getBytesPerSecond();
+
+    long getLatencyP50Micros();
+
+    long getLatencyP99Micros();
+
+    long getLatencyP999Micros();
+
+    long getLatencyMaxMicros();
+
+    double getBlockedSecondsPerSecond();
+
+    double getEmptyReadRatio();
+
+    double getIdleRatio();
+}
@@ -14,7 +14,7 @@ public class Connection {
     private final @NonNull String scope;
     private final @NonNull String streamName;
 
-    private ClientConfig clientConfig;
+    private final ClientConfig clientConfig;
 
     public Connection(@NonNull String scope, @NonNull String streamName, @NonNull URI controllerURI)
              {
@@ -42,4 +42,12 @@ public class Connection {
 
         this.clientConfig = clientConfigBuilder.build();
     }
+
+    /**
+     * Acquires a reference to the client resources shared by every connection with the same client configuration.
+     * The caller must close the returned lease when done with it.
+     */
+    public ConnectionCache.Lease acquireClients() {
+        return ConnectionCache.acquire(clientConfig);
+    }
 }
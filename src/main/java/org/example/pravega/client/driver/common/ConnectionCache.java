@@ -0,0 +1,154 @@
+package org.example.pravega.client.driver.common;
+
+import com.google.common.base.Preconditions;
+import io.pravega.client.ClientConfig;
+import io.pravega.client.EventStreamClientFactory;
+import io.pravega.client.admin.ReaderGroupManager;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.admin.impl.ReaderGroupManagerImpl;
+import io.pravega.client.admin.impl.StreamManagerImpl;
+import io.pravega.client.connection.impl.ConnectionPool;
+import io.pravega.client.connection.impl.ConnectionPoolImpl;
+import io.pravega.client.connection.impl.SocketConnectionFactoryImpl;
+import io.pravega.client.control.impl.Controller;
+import io.pravega.client.control.impl.ControllerImpl;
+import io.pravega.client.control.impl.ControllerImplConfig;
+import io.pravega.client.stream.impl.ClientFactoryImpl;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A process-wide cache of client resources, keyed by {@link ClientConfig} (and so by controller URI, credentials and
+ * TLS settings).
+ *
+ * All the clients handed out for the same configuration share a single controller channel and connection pool, so
+ * sockets and TLS sessions to the controller and segment stores are set up once rather than once per client. The
+ * shared resources are reference-counted: each {@link Lease} holds a reference, and the resources are closed when the
+ * last lease is closed.
+ */
+@Slf4j
+public final class ConnectionCache {
+
+    private static final Map<ClientConfig, SharedClients> CACHE = new HashMap<>();
+
+    private ConnectionCache() {
+    }
+
+    /**
+     * Acquires a reference to the shared client resources for the given configuration, creating them if needed.
+     */
+    public static Lease acquire(@NonNull ClientConfig clientConfig) {
+        synchronized (CACHE) {
+            SharedClients clients = CACHE.computeIfAbsent(clientConfig, SharedClients::new);
+            clients.referenceCount++;
+            return new Lease(clients);
+        }
+    }
+
+    private static void release(SharedClients clients) {
+        synchronized (CACHE) {
+            if (--clients.referenceCount == 0) {
+                CACHE.remove(clients.clientConfig);
+                clients.close();
+            }
+        }
+    }
+
+    /**
+     * A reference to the shared client resources of one configuration. The clients it hands out must not be closed
+     * directly; close the lease instead once they are no longer needed.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final SharedClients clients;
+        private boolean closed = false;
+
+        private Lease(SharedClients clients) {
+            this.clients = clients;
+        }
+
+        public ClientConfig clientConfig() {
+            return clients.clientConfig;
+        }
+
+        public synchronized EventStreamClientFactory clientFactory(@NonNull String scope) {
+            Preconditions.checkState(!closed, "Lease has been closed");
+            return clients.clientFactory(scope);
+        }
+
+        public synchronized StreamManager streamManager() {
+            Preconditions.checkState(!closed, "Lease has been closed");
+            return clients.streamManager();
+        }
+
+        public synchronized ReaderGroupManager readerGroupManager(@NonNull String scope) {
+            Preconditions.checkState(!closed, "Lease has been closed");
+            return clients.readerGroupManager(scope);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                release(clients);
+            }
+        }
+    }
+
+    private static final class SharedClients {
+
+        private final ClientConfig clientConfig;
+        private final ConnectionPool connectionPool;
+        private final Controller controller;
+
+        private final Map<String, ClientFactoryImpl> clientFactories = new HashMap<>();
+        private final Map<String, ReaderGroupManager> readerGroupManagers = new HashMap<>();
+        private StreamManager streamManager;
+
+        private int referenceCount = 0;
+
+        SharedClients(ClientConfig clientConfig) {
+            this.clientConfig = clientConfig;
+            SocketConnectionFactoryImpl connectionFactory = new SocketConnectionFactoryImpl(clientConfig);
+            this.connectionPool = new ConnectionPoolImpl(clientConfig, connectionFactory);
+            this.controller = new ControllerImpl(ControllerImplConfig.builder().clientConfig(clientConfig).build(),
+                    connectionFactory.getInternalExecutor());
+            log.debug("Created shared connection pool for controller {}", clientConfig.getControllerURI());
+        }
+
+        synchronized ClientFactoryImpl clientFactory(String scope) {
+            return clientFactories.computeIfAbsent(scope,
+                    s -> new ClientFactoryImpl(s, controller, connectionPool));
+        }
+
+        synchronized StreamManager streamManager() {
+            if (streamManager == null) {
+                streamManager = new StreamManagerImpl(controller, connectionPool);
+            }
+            return streamManager;
+        }
+
+        synchronized ReaderGroupManager readerGroupManager(String scope) {
+            return readerGroupManagers.computeIfAbsent(scope,
+                    s -> new ReaderGroupManagerImpl(s, controller, clientFactory(s)));
+        }
+
+        synchronized void close() {
+            // Each of these closes the shared controller and connection pool too; closing those is idempotent.
+            readerGroupManagers.forEach((scope, readerGroupManager) -> {
+                readerGroupManager.close();
+                clientFactories.remove(scope);
+            });
+            clientFactories.values().forEach(ClientFactoryImpl::close);
+            if (streamManager != null) {
+                streamManager.close();
+            }
+            connectionPool.close();
+            controller.close();
+            log.debug("Closed shared connection pool for controller {}", clientConfig.getControllerURI());
+        }
+    }
+}
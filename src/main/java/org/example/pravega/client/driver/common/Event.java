@@ -0,0 +1,22 @@
+package org.example.pravega.client.driver.common;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/**
+ * An event together with the routing key it should be written with.
+ */
+@Accessors(fluent = true) @Getter @EqualsAndHashCode @ToString
+public class Event {
+
+    private final String routingKey;
+    private final @NonNull String message;
+
+    public Event(String routingKey, @NonNull String message) {
+        this.routingKey = routingKey;
+        this.message = message;
+    }
+}
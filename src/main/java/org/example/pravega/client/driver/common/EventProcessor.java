@@ -0,0 +1,440 @@
+package org.example.pravega.client.driver.common;
+
+import com.google.common.base.Preconditions;
+import io.pravega.client.EventStreamClientFactory;
+import io.pravega.client.admin.ReaderGroupManager;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.stream.Checkpoint;
+import io.pravega.client.stream.EventRead;
+import io.pravega.client.stream.EventStreamReader;
+import io.pravega.client.stream.ReaderConfig;
+import io.pravega.client.stream.ReaderGroup;
+import io.pravega.client.stream.ReinitializationRequiredException;
+import io.pravega.client.stream.Stream;
+import io.pravega.client.stream.StreamCut;
+import io.pravega.client.stream.impl.JavaSerializer;
+import io.pravega.common.concurrent.ExecutorServiceHelpers;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.experimental.Accessors;
+import org.example.pravega.shared.StreamCutStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Continuously reads events from a reader group and pushes them to a handler in micro-batches.
+ *
+ * One or more readers, each on its own thread, enqueue every event as soon as it is read. A single dispatcher thread
+ * drains the queue into batches and calls the handler, so the handler sees one stream of events in which the order of
+ * events sharing a routing key is preserved. (A reader can only give up a segment inside readNextEvent, and by then
+ * all the events it read from that segment are already queued ahead of anything the next owner reads.)
+ *
+ * A batch is handed over once it holds {@link EventProcessorConfig#maxBatchSize()} events, or once its oldest event
+ * has waited {@link EventProcessorConfig#maxBatchLatencyMs()}. Idle periods do not stop the processor; it runs until
+ * it is closed or the handler throws.
+ *
+ * When the processor uses a durable reader group, it checkpoints the reader group periodically and, if a stream cut
+ * file is configured, saves the position of each completed checkpoint there. A reader that comes to a checkpoint waits
+ * until the handler has returned from every event queued so far before reading on, since the reader group records its
+ * position at the checkpoint on its next read; a checkpoint therefore never covers an event that did not reach the
+ * handler. Readers are named after the reader group, so a restarted processor takes over the segments of readers left
+ * behind by a previous instance that did not shut down cleanly, from their last checkpoint; the events handled since
+ * are handled again. Only one processor should run per durable reader group.
+ *
+ * Reads, the events waiting for the handler and the time readers wait for it are counted in the
+ * {@link ClientMetrics} of the {@link Reader} that started the processor.
+ */
+@Slf4j
+@Accessors(fluent = true)
+public class EventProcessor implements AutoCloseable {
+
+    private final Connection connection;
+    private final String readerGroup;
+    private final EventProcessorConfig config;
+    private final Consumer<List<String>> handler;
+    private final ClientMetrics metrics;
+
+    private final ConnectionCache.Lease clients;
+    private final EventStreamClientFactory clientFactory;
+    private final StreamManager streamManager;
+    private final ReaderGroupManager readerGroupManager;
+    private final ReaderGroup readerGroupHandle;
+    private final StreamCutStore streamCutStore;
+    private final ScheduledExecutorService executor;
+    private final BlockingQueue<String> queue;
+    private final List<ReaderTask> readerTasks = new CopyOnWriteArrayList<>();
+    private final List<ReaderTask> retiredReaderTasks = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextReaderIndex = new AtomicInteger();
+
+    /**
+     * Events enqueued by the readers, and events the handler has returned from. A reader counts an event before it
+     * enqueues it, so once the handled count reaches the enqueued count a reader has seen, all its events are handled.
+     */
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final Object handledLock = new Object();
+    private long handledCount = 0;
+
+    private volatile CompletableFuture<Void> pendingCheckpoint = CompletableFuture.completedFuture(null);
+
+    /**
+     * Completes when the processor stops, exceptionally if it stopped because of a failure.
+     */
+    @Getter
+    private final CompletableFuture<Void> termination = new CompletableFuture<>();
+
+    private volatile boolean running = true;
+
+    EventProcessor(@NonNull Connection connection, @NonNull ConnectionCache.Lease clients,
+                   @NonNull String readerGroup, @NonNull EventProcessorConfig config,
+                   @NonNull Consumer<List<String>> handler, @NonNull ClientMetrics metrics) {
+        Preconditions.checkArgument(config.maxBatchSize() > 0, "maxBatchSize must be positive");
+        Preconditions.checkArgument(config.maxBatchLatencyMs() >= 0, "maxBatchLatencyMs must not be negative");
+        Preconditions.checkArgument(config.readerCount() >= 0, "readerCount must not be negative");
+        Preconditions.checkArgument(config.maxReaderCount() > 0, "maxReaderCount must be positive");
+        this.connection = connection;
+        this.readerGroup = readerGroup;
+        this.config = config;
+        this.handler = handler;
+        this.metrics = metrics;
+
+        this.clients = clients;
+        this.clientFactory = clients.clientFactory(connection.scope());
+        this.streamManager = clients.streamManager();
+        this.readerGroupManager = clients.readerGroupManager(connection.scope());
+        this.readerGroupHandle = readerGroupManager.getReaderGroup(readerGroup);
+        this.streamCutStore = config.streamCutFile() == null ? null : new StreamCutStore(config.streamCutFile());
+        this.queue = new ArrayBlockingQueue<>(config.queueCapacity());
+
+        // One thread per reader, plus one for the dispatcher and one for the periodic tasks.
+        int maxReaders = isAutoReaderCount() ? config.maxReaderCount() : config.readerCount();
+        this.executor = ExecutorServiceHelpers.newScheduledThreadPool(maxReaders + 2,
+                "event-processor-" + readerGroup);
+    }
+
+    void start() {
+        if (isDurable()) {
+            releaseAbandonedReaders();
+        }
+        executor.execute(this::dispatch);
+        resizeReaders();
+        if (isAutoReaderCount()) {
+            executor.scheduleWithFixedDelay(this::resizeReaders, config.readerCountRefreshIntervalMs(),
+                    config.readerCountRefreshIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+        if (isDurable()) {
+            executor.scheduleWithFixedDelay(this::checkpoint, config.checkpointIntervalMs(),
+                    config.checkpointIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean isDurable() {
+        return readerGroup.equals(config.readerGroupName());
+    }
+
+    private String readerIdPrefix() {
+        return readerGroup + "-reader-";
+    }
+
+    /**
+     * Marks readers of a previous instance of this processor offline, so that their segments are handed out again
+     * from the last checkpoint.
+     */
+    private void releaseAbandonedReaders() {
+        for (String readerId : readerGroupHandle.getOnlineReaders()) {
+            if (readerId.startsWith(readerIdPrefix())) {
+                log.info("Releasing segments of abandoned reader '{}' in reader group '{}'", readerId, readerGroup);
+                readerGroupHandle.readerOffline(readerId, null);
+            }
+        }
+    }
+
+    /**
+     * Starts a checkpoint of the reader group, unless the previous one is still waiting for readers, and saves its
+     * position once every reader has passed it.
+     */
+    private void checkpoint() {
+        if (!running || !pendingCheckpoint.isDone()) {
+            return;
+        }
+        try {
+            pendingCheckpoint = readerGroupHandle.initiateCheckpoint("checkpoint-" + System.currentTimeMillis(),
+                    executor)
+                    .thenAccept(this::saveStreamCut)
+                    .exceptionally(e -> {
+                        log.warn("Failed to checkpoint reader group '{}'", readerGroup, e);
+                        return null;
+                    });
+        } catch (Exception e) {
+            log.warn("Failed to checkpoint reader group '{}'", readerGroup, e);
+        }
+    }
+
+    private void saveStreamCut(Checkpoint checkpoint) {
+        if (streamCutStore != null) {
+            saveStreamCut(checkpoint.asImpl().getPositions().get(stream()));
+        }
+    }
+
+    /**
+     * Saves the current position of the reader group. Only call it once every event read has been handled.
+     */
+    private void saveStreamCut() {
+        try {
+            saveStreamCut(readerGroupHandle.getStreamCuts().get(stream()));
+        } catch (Exception e) {
+            log.warn("Failed to save the position of reader group '{}'", readerGroup, e);
+        }
+    }
+
+    private void saveStreamCut(StreamCut streamCut) {
+        if (streamCut != null) {
+            streamCutStore.save(streamCut);
+        }
+    }
+
+    private Stream stream() {
+        return Stream.of(connection.scope(), connection.streamName());
+    }
+
+    /**
+     * Returns the number of readers that are currently running.
+     */
+    public int readerCount() {
+        return readerTasks.size();
+    }
+
+    private boolean isAutoReaderCount() {
+        return config.readerCount() == EventProcessorConfig.AUTO_READER_COUNT;
+    }
+
+    private int targetReaderCount() {
+        if (!isAutoReaderCount()) {
+            return config.readerCount();
+        }
+        int activeSegments = streamManager.getStreamInfo(connection.scope(), connection.streamName())
+                .getTailStreamCut().asImpl().getPositions().size();
+        return Math.max(1, Math.min(activeSegments, config.maxReaderCount()));
+    }
+
+    private synchronized void resizeReaders() {
+        if (!running) {
+            return;
+        }
+        try {
+            retiredReaderTasks.removeIf(task -> !task.isActive());
+            int target = targetReaderCount();
+            int current = readerTasks.size();
+            while (readerTasks.size() < target) {
+                ReaderTask task = new ReaderTask(readerIdPrefix() + nextReaderIndex.getAndIncrement());
+                readerTasks.add(task);
+                executor.execute(task);
+            }
+            while (readerTasks.size() > target) {
+                ReaderTask task = readerTasks.remove(readerTasks.size() - 1);
+                task.stop();
+                retiredReaderTasks.add(task);
+            }
+            if (target != current) {
+                log.info("Running {} readers in reader group '{}'", readerTasks.size(), readerGroup);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to adjust the number of readers in reader group '{}'", readerGroup, e);
+        }
+    }
+
+    private void dispatch() {
+        List<String> batch = new ArrayList<>(config.maxBatchSize());
+        long batchDeadline = 0;
+        try {
+            while (running || !queue.isEmpty() || readersActive()) {
+                long timeout = batch.isEmpty()
+                        ? config.readTimeoutMs()
+                        : Math.max(0, batchDeadline - System.currentTimeMillis());
+                String event = queue.poll(timeout, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    if (batch.isEmpty()) {
+                        batchDeadline = System.currentTimeMillis() + config.maxBatchLatencyMs();
+                    }
+                    batch.add(event);
+                    queue.drainTo(batch, config.maxBatchSize() - batch.size());
+                }
+
+                if (!batch.isEmpty() && (batch.size() >= config.maxBatchSize()
+                        || System.currentTimeMillis() >= batchDeadline)) {
+                    metrics.dequeued(batch.size());
+                    handler.accept(batch);
+                    handled(batch.size());
+                    batch = new ArrayList<>(config.maxBatchSize());
+                }
+            }
+            if (!batch.isEmpty()) {
+                metrics.dequeued(batch.size());
+                handler.accept(batch);
+                handled(batch.size());
+            }
+            termination.complete(null);
+        } catch (Throwable e) {
+            log.error("Event processor for reader group '{}' failed", readerGroup, e);
+            // Readers that stop because the processor is no longer running must see that it failed.
+            termination.completeExceptionally(e);
+            running = false;
+        } finally {
+            synchronized (handledLock) {
+                handledLock.notifyAll();
+            }
+        }
+    }
+
+    private void handled(int count) {
+        synchronized (handledLock) {
+            handledCount += count;
+            handledLock.notifyAll();
+        }
+    }
+
+    private boolean readersActive() {
+        return readerTasks.stream().anyMatch(ReaderTask::isActive)
+                || retiredReaderTasks.stream().anyMatch(ReaderTask::isActive);
+    }
+
+    /**
+     * Stops reading, hands the events already read to the handler and waits for the processor to stop.
+     */
+    @Override
+    public void close() {
+        running = false;
+        readerTasks.forEach(ReaderTask::stop);
+        try {
+            termination.exceptionally(e -> null).join();
+        } finally {
+            ExecutorServiceHelpers.shutdown(executor);
+            // After a clean stop, the readers left the reader group at the last event they read, which the handler
+            // has seen; after a failure, they left it at the last checkpoint, whose position is already saved.
+            if (streamCutStore != null && !termination.isCompletedExceptionally()) {
+                saveStreamCut();
+            }
+            readerGroupHandle.close();
+            if (!isDurable()) {
+                readerGroupManager.deleteReaderGroup(readerGroup);
+            }
+            clients.close();
+        }
+    }
+
+    private class ReaderTask implements Runnable {
+
+        private final String readerId;
+        private volatile boolean stopped = false;
+        private volatile boolean active = true;
+
+        ReaderTask(String readerId) {
+            this.readerId = readerId;
+        }
+
+        boolean isActive() {
+            return active;
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        @Override
+        public void run() {
+            log.info("Starting reader '{}' in reader group '{}'", readerId, readerGroup);
+            EventStreamReader<String> reader = null;
+            try {
+                reader = createReader();
+                while (running && !stopped) {
+                    EventRead<String> event;
+                    try {
+                        final long start = System.nanoTime();
+                        event = reader.readNextEvent(config.readTimeoutMs());
+                        metrics.readCompleted(System.nanoTime() - start, event.getEvent() == null);
+                    } catch (ReinitializationRequiredException e) {
+                        log.warn("Reader '{}' requires reinitialization; recreating it", readerId, e);
+                        reader.close();
+                        reader = createReader();
+                        continue;
+                    }
+                    if (event.getEvent() != null) {
+                        enqueue(event.getEvent());
+                    } else if (event.isCheckpoint()) {
+                        awaitHandled();
+                    }
+                }
+                awaitHandled();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                log.error("Reader '{}' failed", readerId, e);
+            } finally {
+                try {
+                    if (reader != null) {
+                        if (isDurable() && termination.isCompletedExceptionally()) {
+                            // Some of the events this reader read never reached the handler; they are read again by
+                            // whoever takes over its segments, from the last checkpoint.
+                            reader.closeAt(null);
+                        } else {
+                            reader.close();
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to close reader '{}'", readerId, e);
+                } finally {
+                    active = false;
+                    log.info("Stopped reader '{}'", readerId);
+                }
+            }
+        }
+
+        private void enqueue(String event) throws InterruptedException {
+            enqueuedCount.incrementAndGet();
+            if (queue.offer(event)) {
+                metrics.queued();
+                return;
+            }
+            // Blocks while the handler is behind, but gives up if the processor stopped because the handler failed.
+            final long blockedStart = System.nanoTime();
+            try {
+                while (!queue.offer(event, config.readTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                    if (termination.isDone()) {
+                        return;
+                    }
+                }
+                metrics.queued();
+            } finally {
+                metrics.blocked(System.nanoTime() - blockedStart);
+            }
+        }
+
+        /**
+         * Waits until the handler has returned from every event enqueued so far, this reader's included, or until the
+         * processor stops.
+         */
+        private void awaitHandled() throws InterruptedException {
+            final long enqueued = enqueuedCount.get();
+            synchronized (handledLock) {
+                while (handledCount < enqueued && !termination.isDone()) {
+                    handledLock.wait(config.readTimeoutMs());
+                }
+            }
+        }
+
+        private EventStreamReader<String> createReader() {
+            return clientFactory.createReader(readerId, readerGroup,
+                    new MeteredSerializer<>(new JavaSerializer<String>(), metrics), ReaderConfig.builder().build());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.pravega.client.driver.common;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+import java.nio.file.Path;
+
+/**
+ * Settings of an {@link EventProcessor}.
+ */
+@Accessors(fluent = true) @Getter @Builder @ToString
+public class EventProcessorConfig {
+
+    /**
+     * Number of readers to run in the reader group. Use {@link #AUTO_READER_COUNT} to run one reader per active
+     * segment, up to {@link #maxReaderCount()}, and to follow the segment count as the stream scales.
+     */
+    public static final int AUTO_READER_COUNT = 0;
+
+    /**
+     * Maximum number of events handed to the handler in one call.
+     */
+    @Builder.Default
+    private final int maxBatchSize = 100;
+
+    /**
+     * Maximum time an event may wait in a partially filled batch before the batch is handed to the handler.
+     */
+    @Builder.Default
+    private final long maxBatchLatencyMs = 100;
+
+    /**
+     * Time a single read waits for an event. Idle reads do not stop the processor.
+     */
+    @Builder.Default
+    private final long readTimeoutMs = 2000;
+
+    @Builder.Default
+    private final int readerCount = 1;
+
+    /**
+     * Name of a durable reader group. A processor that is started again with the same name resumes from the group's
+     * last checkpoint instead of from the head of the stream. If not set, a new reader group is created for every
+     * processor and deleted when it is closed.
+     */
+    private final String readerGroupName;
+
+    /**
+     * How often a durable reader group is checkpointed, and its position saved to {@link #streamCutFile()}.
+     */
+    @Builder.Default
+    private final long checkpointIntervalMs = 30000;
+
+    /**
+     * File in which the position of a durable reader group is saved after each checkpoint. When the reader group does
+     * not exist yet, it is created to start from the position saved in this file, if there is one.
+     */
+    private final Path streamCutFile;
+
+    /**
+     * Upper bound on the number of readers when the reader count is derived from the number of active segments.
+     */
+    @Builder.Default
+    private final int maxReaderCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * How often the number of active segments is checked when the reader count is derived from it.
+     */
+    @Builder.Default
+    private final long readerCountRefreshIntervalMs = 10000;
+
+    /**
+     * Number of events that may be read ahead of the handler before readers are blocked.
+     */
+    @Builder.Default
+    private final int queueCapacity = 10000;
+}
@@ -0,0 +1,29 @@
+package org.example.pravega.client.driver.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Logs each snapshot on one line.
+ */
+@Slf4j
+public class LoggingMetricsReporter implements MetricsReporter {
+
+    @Override
+    public void report(MetricsSnapshot snapshot) {
+        String reads = snapshot.type() == ClientMetrics.Type.READER
+                ? String.format("; %d reads, %.0f%% empty, %.0f%% idle", snapshot.reads(),
+                        snapshot.emptyReadRatio() * 100, snapshot.idleRatio() * 100)
+                : "";
+        log.info("{}: {} events/s, {} MB/s, {} failed, {} in flight; latency ms p50={} p99={} p99.9={} max={}; "
+                        + "blocked {} s/s{}",
+                snapshot.name(), String.format("%.1f", snapshot.eventsPerSecond()),
+                String.format("%.2f", snapshot.bytesPerSecond() / (1024 * 1024)), snapshot.failures(),
+                snapshot.inFlight(), millis(snapshot.latencyP50Micros()), millis(snapshot.latencyP99Micros()),
+                millis(snapshot.latencyP999Micros()), millis(snapshot.latencyMaxMicros()),
+                String.format("%.2f", snapshot.blockedSecondsPerSecond()), reads);
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.pravega.client.driver.common;
+
+import io.pravega.client.stream.Serializer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counts the bytes of the events that another serializer reads. Written events are counted by the {@link Writer}
+ * once they are acknowledged instead, so that failed appends are left out.
+ */
+class MeteredSerializer<T> implements Serializer<T> {
+
+    private final Serializer<T> serializer;
+    private final ClientMetrics metrics;
+
+    MeteredSerializer(Serializer<T> serializer, ClientMetrics metrics) {
+        this.serializer = serializer;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ByteBuffer serialize(T value) {
+        return serializer.serialize(value);
+    }
+
+    @Override
+    public T deserialize(ByteBuffer serializedValue) {
+        metrics.bytes(serializedValue.remaining());
+        return serializer.deserialize(serializedValue);
+    }
+}
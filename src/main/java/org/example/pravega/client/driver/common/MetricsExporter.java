@@ -0,0 +1,96 @@
+package org.example.pravega.client.driver.common;
+
+import com.google.common.base.Preconditions;
+import io.pravega.common.concurrent.ExecutorServiceHelpers;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically takes a snapshot of the metrics of the clients it exports, and hands it to its reporters. The metrics
+ * are also registered with the platform MBean server for as long as they are exported, under
+ * {@link ClientMetrics#objectName()}.
+ */
+@Slf4j
+public class MetricsExporter implements AutoCloseable {
+
+    private final List<MetricsReporter> reporters;
+    private final CopyOnWriteArrayList<ClientMetrics> exported = new CopyOnWriteArrayList<>();
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final ScheduledExecutorService executor;
+
+    public MetricsExporter(@NonNull Duration interval, MetricsReporter... reporters) {
+        Preconditions.checkArgument(!interval.isNegative() && !interval.isZero(), "interval must be positive");
+        this.reporters = Arrays.asList(reporters);
+        this.executor = ExecutorServiceHelpers.newScheduledThreadPool(1, "metrics-exporter");
+        executor.scheduleAtFixedRate(this::report, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts exporting the metrics of a client, e.g. {@code exporter.export(writer.metrics())}.
+     */
+    public void export(@NonNull ClientMetrics metrics) {
+        if (exported.addIfAbsent(metrics)) {
+            try {
+                mBeanServer.registerMBean(metrics, metrics.objectName());
+            } catch (JMException e) {
+                log.warn("Failed to register {} with JMX", metrics, e);
+            }
+        }
+    }
+
+    /**
+     * Stops exporting the metrics of a client, after a last report.
+     */
+    public void unexport(@NonNull ClientMetrics metrics) {
+        if (exported.remove(metrics)) {
+            report(metrics);
+            unregister(metrics);
+        }
+    }
+
+    private void report() {
+        exported.forEach(this::report);
+    }
+
+    private void report(ClientMetrics metrics) {
+        MetricsSnapshot snapshot = metrics.snapshot();
+        for (MetricsReporter reporter : reporters) {
+            try {
+                reporter.report(snapshot);
+            } catch (RuntimeException e) {
+                log.warn("Failed to report the metrics of {}", metrics, e);
+            }
+        }
+    }
+
+    private void unregister(ClientMetrics metrics) {
+        try {
+            mBeanServer.unregisterMBean(metrics.objectName());
+        } catch (JMException e) {
+            log.debug("Failed to unregister {} from JMX", metrics, e);
+        }
+    }
+
+    /**
+     * Stops reporting, after a last report of every client, and unregisters their metrics from JMX.
+     */
+    @Override
+    public void close() {
+        ExecutorServiceHelpers.shutdown(executor);
+        for (ClientMetrics metrics : exported) {
+            report(metrics);
+            unregister(metrics);
+        }
+        exported.clear();
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.pravega.client.driver.common;
+
+/**
+ * Receives the snapshots a {@link MetricsExporter} takes, to log them or to pass them on to a monitoring system.
+ * Reporters are called from the thread of the exporter, one snapshot at a time.
+ */
+@FunctionalInterface
+public interface MetricsReporter {
+
+    void report(MetricsSnapshot snapshot);
+}
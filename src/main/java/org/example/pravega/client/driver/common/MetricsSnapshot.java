@@ -0,0 +1,54 @@
+package org.example.pravega.client.driver.common;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/**
+ * The metrics of a client over the interval between two snapshots, see {@link ClientMetrics}.
+ */
+@Accessors(fluent = true) @Getter @Builder @ToString
+public class MetricsSnapshot {
+
+    private final String name;
+    private final ClientMetrics.Type type;
+    private final double intervalSeconds;
+
+    /**
+     * Events acknowledged to a writer, or returned to a reader.
+     */
+    private final long events;
+    private final double eventsPerSecond;
+    private final double bytesPerSecond;
+
+    /**
+     * Appends that failed.
+     */
+    private final long failures;
+
+    /**
+     * Events in flight when the snapshot was taken.
+     */
+    private final long inFlight;
+
+    private final long latencyP50Micros;
+    private final long latencyP99Micros;
+    private final long latencyP999Micros;
+    private final long latencyMaxMicros;
+
+    /**
+     * Time spent blocked per second, summed over the threads of the client, so that 1 is one thread always blocked.
+     */
+    private final double blockedSecondsPerSecond;
+
+    /**
+     * Reads, the share of them that returned no event, and the share of the reading time those took; the ratios are
+     * NaN for writers, and for readers that did not read.
+     */
+    private final long reads;
+    @Builder.Default
+    private final double emptyReadRatio = Double.NaN;
+    @Builder.Default
+    private final double idleRatio = Double.NaN;
+}
@@ -1,20 +1,28 @@
 package org.example.pravega.client.driver.common;
 
-import io.pravega.client.EventStreamClientFactory;
-import io.pravega.client.admin.ReaderGroupManager;
 import io.pravega.client.admin.StreamManager;
 import io.pravega.client.stream.*;
 import io.pravega.client.stream.impl.JavaSerializer;
+import com.google.common.base.Preconditions;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.example.pravega.shared.StreamCutStore;
 
 import java.net.URI;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Slf4j
 public class Reader extends Client {
 
     private static final int READER_TIMEOUT_MS = 2000;
 
+    private final ClientMetrics metrics = new ClientMetrics(ClientMetrics.Type.READER, connection().scope(),
+            connection().streamName());
+
+    private volatile int segmentCount = Writer.DEFAULT_SEGMENT_COUNT;
+
     public Reader(String scope, String streamName, URI controllerURI) {
         super(scope, streamName, controllerURI);
     }
@@ -27,38 +35,45 @@ public class Reader extends Client {
         super(scope, streamName, controllerURI, false, userName, password);
     }
 
-    public void readAndPrintAllEvents () {
+    /**
+     * Returns the metrics of the reads of this reader and of the processors it started.
+     */
+    public ClientMetrics metrics() {
+        return metrics;
+    }
 
-        Connection conn = this.connection();
+    /**
+     * Sets the number of segments the stream is created with, if it does not exist yet when reading starts.
+     */
+    public Reader segmentCount(int segmentCount) {
+        Preconditions.checkArgument(segmentCount > 0, "segmentCount must be positive");
+        this.segmentCount = segmentCount;
+        return this;
+    }
 
-        StreamManager streamManager = StreamManager.create(conn.clientConfig());
+    public int segmentCount() {
+        return segmentCount;
+    }
 
-        final boolean scopeIsNew = streamManager.createScope(conn.scope());
-        StreamConfiguration streamConfig = StreamConfiguration.builder()
-                .scalingPolicy(ScalingPolicy.fixed(1))
-                .build();
-        final boolean streamIsNew = streamManager.createStream(conn.scope(), conn.streamName(), streamConfig);
+    public void readAndPrintAllEvents () {
 
-        final String readerGroup = UUID.randomUUID().toString().replace("-", "");
-        final ReaderGroupConfig readerGroupConfig = ReaderGroupConfig.builder()
-                .stream(Stream.of(conn.scope(), conn.streamName()))
-                .build();
-        try (ReaderGroupManager readerGroupManager = ReaderGroupManager.withScope(conn.scope(),
-                conn.clientConfig())) {
-            readerGroupManager.createReaderGroup(readerGroup, readerGroupConfig);
-        }
+        Connection conn = this.connection();
 
-        try (EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(conn.scope(), conn.clientConfig());
-             EventStreamReader<String> reader = clientFactory.createReader("reader",
-                     readerGroup,
-                     new JavaSerializer<String>(),
+        try (ConnectionCache.Lease clients = conn.acquireClients();
+             EventStreamReader<String> reader = clients.clientFactory(conn.scope()).createReader("reader",
+                     createReaderGroup(clients, newReaderGroupName(), ReaderGroupConfig.builder()
+                             .stream(Stream.of(conn.scope(), conn.streamName()))
+                             .build()),
+                     new MeteredSerializer<>(new JavaSerializer<String>(), metrics),
                      ReaderConfig.builder().build())) {
             log.info("Reading all events from '{}/{}'", conn.scope(), conn.streamName());
 
             EventRead<String> event = null;
             do {
                 try {
+                    final long start = System.nanoTime();
                     event = reader.readNextEvent(READER_TIMEOUT_MS);
+                    metrics.readCompleted(System.nanoTime() - start, event.getEvent() == null);
                     if (event.getEvent() != null) {
                         log.info("Read event '{}", event.getEvent());
                     }
@@ -69,4 +84,68 @@ public class Reader extends Client {
             log.info("No more events from '{}/{}'", conn.scope(), conn.streamName());
         }
     }
+
+    public EventProcessor startProcessing(@NonNull Consumer<List<String>> handler) {
+        return startProcessing(EventProcessorConfig.builder().build(), handler);
+    }
+
+    /**
+     * Starts a processor that continuously reads the stream and pushes events to the given handler in micro-batches,
+     * on a thread dedicated to the processor. The processor keeps running through idle periods until it is closed.
+     *
+     * Set {@link EventProcessorConfig#readerCount()} to run several readers in parallel, or to
+     * {@link EventProcessorConfig#AUTO_READER_COUNT} to run one reader per active segment.
+     *
+     * Set {@link EventProcessorConfig#readerGroupName()} to resume where a previous processor with the same reader
+     * group left off, rather than reading the stream from the head.
+     */
+    public EventProcessor startProcessing(@NonNull EventProcessorConfig config,
+                                          @NonNull Consumer<List<String>> handler) {
+        Connection conn = this.connection();
+
+        StreamCut startingStreamCut = config.streamCutFile() == null
+                ? StreamCut.UNBOUNDED
+                : new StreamCutStore(config.streamCutFile()).load();
+        ConnectionCache.Lease clients = conn.acquireClients();
+        EventProcessor processor;
+        try {
+            final String readerGroup = createReaderGroup(clients,
+                    config.readerGroupName() != null ? config.readerGroupName() : newReaderGroupName(),
+                    ReaderGroupConfig.builder()
+                            .stream(Stream.of(conn.scope(), conn.streamName()), startingStreamCut)
+                            // The processor checkpoints durable reader groups itself, once the handler caught up.
+                            .disableAutomaticCheckpoints()
+                            .build());
+            processor = new EventProcessor(conn, clients, readerGroup, config, handler, metrics);
+        } catch (RuntimeException e) {
+            clients.close();
+            throw e;
+        }
+        processor.start();
+        log.info("Started processing events from '{}/{}' with {}", conn.scope(), conn.streamName(), config);
+        return processor;
+    }
+
+    /**
+     * Creates the stream and the reader group, if they don't exist yet. The configuration only takes effect when the
+     * reader group is new; an existing reader group keeps its own configuration and position.
+     */
+    private String createReaderGroup(ConnectionCache.Lease clients, String readerGroup,
+                                     ReaderGroupConfig readerGroupConfig) {
+        Connection conn = this.connection();
+
+        StreamManager streamManager = clients.streamManager();
+        final boolean scopeIsNew = streamManager.createScope(conn.scope());
+        StreamConfiguration streamConfig = StreamConfiguration.builder()
+                .scalingPolicy(ScalingPolicy.fixed(segmentCount))
+                .build();
+        final boolean streamIsNew = streamManager.createStream(conn.scope(), conn.streamName(), streamConfig);
+
+        clients.readerGroupManager(conn.scope()).createReaderGroup(readerGroup, readerGroupConfig);
+        return readerGroup;
+    }
+
+    private static String newReaderGroupName() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
 }
@@ -1,17 +1,59 @@
 package org.example.pravega.client.driver.common;
 
-import io.pravega.client.EventStreamClientFactory;
 import io.pravega.client.admin.StreamManager;
 import io.pravega.client.stream.EventStreamWriter;
 import io.pravega.client.stream.EventWriterConfig;
 import io.pravega.client.stream.ScalingPolicy;
+import io.pravega.client.stream.Serializer;
 import io.pravega.client.stream.StreamConfiguration;
+import io.pravega.client.stream.impl.ByteBufferSerializer;
 import io.pravega.client.stream.impl.JavaSerializer;
+import com.google.common.base.Preconditions;
+import io.pravega.common.Exceptions;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 
-public class Writer extends Client {
+/**
+ * A long-lived, thread-safe writer. The scope and stream are provisioned and the client factory and event writer
+ * are created once, on first use; they are then reused for every subsequent write until the writer is closed.
+ *
+ * Writes may be pipelined with {@link #writeEventAsync(String, String)}. The number of appends that are outstanding
+ * at any time is capped by {@link #maxInFlightEvents(int)}; once the window is full, callers block until an earlier
+ * append is acknowledged.
+ *
+ * The appends, their latency and the time spent waiting for the window are counted in {@link #metrics()}.
+ */
+@Slf4j
+public class Writer extends Client implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT_EVENTS = 1000;
+    public static final int DEFAULT_SEGMENT_COUNT = 1;
+
+    private static final Serializer<String> SERIALIZER = new JavaSerializer<>();
+
+    private final Object lock = new Object();
+    private final ClientMetrics metrics = new ClientMetrics(ClientMetrics.Type.WRITER, connection().scope(),
+            connection().streamName());
+
+    private int maxInFlightEvents = DEFAULT_MAX_IN_FLIGHT_EVENTS;
+    private int segmentCount = DEFAULT_SEGMENT_COUNT;
+    private volatile Semaphore inFlightPermits;
+
+    private ConnectionCache.Lease clients;
+    // Events are serialized before they are handed to the event writer, so that their size is known when the append
+    // is acknowledged.
+    private volatile EventStreamWriter<ByteBuffer> eventWriter;
+    private volatile boolean closed = false;
 
     public Writer(String scope, String streamName, URI controllerURI) {
         super(scope, streamName, controllerURI);
@@ -25,28 +67,209 @@ public class Writer extends Client {
         super(scope, streamName, controllerURI, true, userName, password);
     }
 
+    /**
+     * Sets the maximum number of appends that may be outstanding at any time. Must be called before the first write.
+     */
+    public Writer maxInFlightEvents(int maxInFlightEvents) {
+        Preconditions.checkArgument(maxInFlightEvents > 0, "maxInFlightEvents must be positive");
+        synchronized (lock) {
+            Preconditions.checkState(eventWriter == null, "Writer is already in use");
+            this.maxInFlightEvents = maxInFlightEvents;
+        }
+        return this;
+    }
+
+    public int maxInFlightEvents() {
+        return maxInFlightEvents;
+    }
+
+    /**
+     * Sets the number of segments the stream is created with, if it does not exist yet. Must be called before the
+     * first write.
+     */
+    public Writer segmentCount(int segmentCount) {
+        Preconditions.checkArgument(segmentCount > 0, "segmentCount must be positive");
+        synchronized (lock) {
+            Preconditions.checkState(eventWriter == null, "Writer is already in use");
+            this.segmentCount = segmentCount;
+        }
+        return this;
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Returns the number of appends that have been issued but not yet acknowledged.
+     */
+    public int inFlightEvents() {
+        Semaphore permits = inFlightPermits;
+        return permits == null ? 0 : maxInFlightEvents - permits.availablePermits();
+    }
+
+    public ClientMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes the event and waits for it to be acknowledged.
+     */
     public void writeEvent(String routingKey, String message) {
+        writeEventAsync(routingKey, message).join();
+    }
 
-        Connection conn = connection();
+    /**
+     * Issues an append and returns without waiting for it to be acknowledged. Blocks while the in-flight window is
+     * full.
+     *
+     * @return a future that completes when the event is durably stored, or exceptionally if the append failed
+     */
+    public CompletableFuture<Void> writeEventAsync(String routingKey, String message) {
+        EventStreamWriter<ByteBuffer> writer = eventWriter();
+        ByteBuffer event = SERIALIZER.serialize(message);
+        Semaphore permits = inFlightPermits;
+        if (!permits.tryAcquire()) {
+            final long blockedStart = System.nanoTime();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CompletableFuture<Void> result = new CompletableFuture<>();
+                result.completeExceptionally(e);
+                return result;
+            } finally {
+                metrics.blocked(System.nanoTime() - blockedStart);
+            }
+        }
 
-        // Stream manager is used to manage streams and reader groups.
-        StreamManager streamManager = StreamManager.create(conn.clientConfig());
+        final long start = System.nanoTime();
+        final int size = event.remaining();
+        metrics.appendIssued();
+        CompletableFuture<Void> writeFuture;
+        try {
+            writeFuture = writer.writeEvent(routingKey, event);
+        } catch (RuntimeException e) {
+            permits.release();
+            metrics.appendCompleted(start, size, false);
+            throw e;
+        }
+        return writeFuture.whenComplete((v, e) -> {
+            permits.release();
+            metrics.appendCompleted(start, size, e == null);
+        });
+    }
+
+    /**
+     * Writes a batch of events. Events are grouped by routing key and the appends of each group are issued back-to-back,
+     * preserving the relative order of events that share a routing key. The in-flight window still applies, so a
+     * large batch is pipelined rather than issued all at once.
+     *
+     * @return a future that completes once every event has been either acknowledged or failed; events that could not
+     *         be written are reported in {@link BatchWriteResult#failures()}
+     */
+    public CompletableFuture<BatchWriteResult> writeEvents(@NonNull Collection<Event> events) {
+        final List<Event> batch = new ArrayList<>(events);
+        final Map<String, List<Integer>> indexesByRoutingKey = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            indexesByRoutingKey.computeIfAbsent(batch.get(i).routingKey(), k -> new ArrayList<>()).add(i);
+        }
+
+        final Throwable[] errors = new Throwable[batch.size()];
+        final CompletableFuture<?>[] writeFutures = new CompletableFuture<?>[batch.size()];
+        indexesByRoutingKey.forEach((routingKey, indexes) -> {
+            for (int index : indexes) {
+                CompletableFuture<Void> writeFuture;
+                try {
+                    writeFuture = writeEventAsync(routingKey, batch.get(index).message());
+                } catch (RuntimeException e) {
+                    writeFuture = new CompletableFuture<>();
+                    writeFuture.completeExceptionally(e);
+                }
+                writeFutures[index] = writeFuture.handle((v, e) -> {
+                    if (e != null) {
+                        errors[index] = Exceptions.unwrap(e);
+                    }
+                    return null;
+                });
+            }
+        });
+
+        return CompletableFuture.allOf(writeFutures).thenApply(v -> {
+            List<BatchWriteResult.Failure> failures = new ArrayList<>();
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] != null) {
+                    failures.add(new BatchWriteResult.Failure(i, batch.get(i), errors[i]));
+                }
+            }
+            if (!failures.isEmpty()) {
+                log.warn("Failed to write {} of {} events to stream '{}/{}'", failures.size(), batch.size(),
+                        connection().scope(), connection().streamName());
+            }
+            return new BatchWriteResult(batch.size(), failures);
+        });
+    }
+
+    /**
+     * Blocks until every append issued so far has been acknowledged.
+     */
+    public void flush() {
+        EventStreamWriter<ByteBuffer> writer = eventWriter;
+        if (writer != null) {
+            writer.flush();
+        }
+    }
 
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // Writes that race with close see no event writer, and fail on the closed check below.
+            if (eventWriter != null) {
+                eventWriter.close();
+                eventWriter = null;
+            }
+            if (clients != null) {
+                clients.close();
+            }
+            log.debug("Closed writer for stream '{}/{}'", connection().scope(), connection().streamName());
+        }
+    }
+
+    EventStreamWriter<ByteBuffer> eventWriter() {
+        EventStreamWriter<ByteBuffer> result = eventWriter;
+        if (result != null && !closed) {
+            return result;
+        }
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Writer has been closed");
+            }
+            if (eventWriter == null) {
+                Connection conn = connection();
+                clients = conn.acquireClients();
+                provisionScopeAndStream(conn, clients.streamManager(), segmentCount);
+                inFlightPermits = new Semaphore(maxInFlightEvents);
+                eventWriter = clients.clientFactory(conn.scope()).createEventWriter(conn.streamName(),
+                        new ByteBufferSerializer(), EventWriterConfig.builder().build());
+                log.debug("Created event writer for stream '{}/{}'", conn.scope(), conn.streamName());
+            }
+            return eventWriter;
+        }
+    }
+
+    private static void provisionScopeAndStream(Connection conn, StreamManager streamManager, int segmentCount) {
         final boolean scopeIsNew = streamManager.createScope(conn.scope());
 
         StreamConfiguration streamConfig = StreamConfiguration.builder()
-                .scalingPolicy(ScalingPolicy.fixed(1))
+                .scalingPolicy(ScalingPolicy.fixed(segmentCount))
                 .build();
         final boolean streamIsNew = streamManager.createStream(conn.scope(),
                 conn.streamName(), streamConfig);
-
-        try (EventStreamClientFactory clientFactory = EventStreamClientFactory.withScope(conn.scope(),
-                conn.clientConfig());
-             EventStreamWriter<String> writer = clientFactory.createEventWriter(conn.streamName(),
-                     new JavaSerializer<String>(),
-                     EventWriterConfig.builder().build())) {
-
-            final CompletableFuture writeFuture = writer.writeEvent(routingKey, message);
-        }
+        log.debug("Provisioned stream '{}/{}' (scope is new: {}, stream is new: {})",
+                conn.scope(), conn.streamName(), scopeIsNew, streamIsNew);
     }
 }
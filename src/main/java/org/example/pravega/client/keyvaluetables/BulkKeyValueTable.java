@@ -0,0 +1,123 @@
+package org.example.pravega.client.keyvaluetables;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import io.pravega.client.tables.KeyValueTable;
+import io.pravega.client.tables.TableEntry;
+import io.pravega.client.tables.Version;
+import io.pravega.common.Exceptions;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk reads and writes over a {@link KeyValueTable}.
+ *
+ * Keys of a key family are read and written in batches of up to {@link #maxBatchSize()} keys with a single
+ * {@code getAll} or {@code putAll} call each, and at most {@link #maxConcurrency()} batches are outstanding at a time.
+ * A batch is applied atomically by the table, so it either succeeds or fails as a whole; the failed keys of all
+ * batches are reported together once every batch has completed. Entries without a key family cannot be written in
+ * batches, and are put one by one, with the same bound on concurrency.
+ */
+@Slf4j
+public class BulkKeyValueTable<K, V> {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    private final KeyValueTable<K, V> table;
+    private final int maxBatchSize;
+    private final int maxConcurrency;
+
+    public BulkKeyValueTable(@NonNull KeyValueTable<K, V> table) {
+        this(table, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    public BulkKeyValueTable(@NonNull KeyValueTable<K, V> table, int maxBatchSize, int maxConcurrency) {
+        Preconditions.checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+        Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency must be positive");
+        this.table = table;
+        this.maxBatchSize = maxBatchSize;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Puts the given entries in the given key family, which may be null, and returns the new version of each key.
+     */
+    public CompletableFuture<BulkResult<K, Version>> putAll(String keyFamily, @NonNull Map<K, V> entries) {
+        final List<Map.Entry<K, V>> entryList = entries.entrySet().stream()
+                .map(e -> new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+        final Map<K, Version> versions = new ConcurrentHashMap<>();
+        final Collection<BulkResult.Failure<K>> failures = new ConcurrentLinkedQueue<>();
+
+        final List<List<Map.Entry<K, V>>> batches = Lists.partition(entryList, keyFamily == null ? 1 : maxBatchSize);
+        return ConcurrentTasks.runAll(batches, maxConcurrency, batch -> {
+            CompletableFuture<List<Version>> putFuture = ConcurrentTasks.call(() -> keyFamily == null
+                    ? table.put(null, batch.get(0).getKey(), batch.get(0).getValue())
+                            .thenApply(Collections::singletonList)
+                    : table.putAll(keyFamily, batch));
+            return putFuture.handle((batchVersions, e) -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (e == null) {
+                        versions.put(batch.get(i).getKey(), batchVersions.get(i));
+                    } else {
+                        failures.add(new BulkResult.Failure<>(batch.get(i).getKey(), Exceptions.unwrap(e)));
+                    }
+                }
+                return null;
+            });
+        }).thenApply(v -> result("put", keyFamily, entryList.size(), versions, failures));
+    }
+
+    /**
+     * Gets the entries of the given keys in the given key family, which may be null. Keys that do not exist are left
+     * out of the results.
+     */
+    public CompletableFuture<BulkResult<K, TableEntry<K, V>>> getAll(String keyFamily, @NonNull Collection<K> keys) {
+        final List<K> keyList = new ArrayList<>(new LinkedHashSet<>(keys));
+        final Map<K, TableEntry<K, V>> tableEntries = new ConcurrentHashMap<>();
+        final Collection<BulkResult.Failure<K>> failures = new ConcurrentLinkedQueue<>();
+
+        return ConcurrentTasks.runAll(Lists.partition(keyList, maxBatchSize), maxConcurrency, batch ->
+                ConcurrentTasks.call(() -> table.getAll(keyFamily, batch)).handle((batchEntries, e) -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (e != null) {
+                            failures.add(new BulkResult.Failure<>(batch.get(i), Exceptions.unwrap(e)));
+                        } else if (batchEntries.get(i) != null) {
+                            tableEntries.put(batch.get(i), batchEntries.get(i));
+                        }
+                    }
+                    return null;
+                })
+        ).thenApply(v -> result("get", keyFamily, keyList.size(), tableEntries, failures));
+    }
+
+    private <R> BulkResult<K, R> result(String operation, String keyFamily, int keyCount, Map<K, R> results,
+                                        Collection<BulkResult.Failure<K>> failures) {
+        if (!failures.isEmpty()) {
+            log.warn("Failed to {} {} of {} keys in key family '{}' of table {}", operation, failures.size(), keyCount,
+                    keyFamily, table);
+        }
+        return new BulkResult<>(keyCount, results, new ArrayList<>(failures));
+    }
+}
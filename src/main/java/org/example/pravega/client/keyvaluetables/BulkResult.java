@@ -0,0 +1,51 @@
+package org.example.pravega.client.keyvaluetables;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a bulk operation on a key-value table: the result for each key that succeeded and the keys that
+ * failed.
+ */
+@Accessors(fluent = true) @Getter @ToString
+public class BulkResult<K, R> {
+
+    private final int keyCount;
+
+    /**
+     * Result of each key that succeeded. Keys that a bulk read did not find are not included.
+     */
+    private final Map<K, R> results;
+    private final List<Failure<K>> failures;
+
+    BulkResult(int keyCount, Map<K, R> results, List<Failure<K>> failures) {
+        this.keyCount = keyCount;
+        this.results = Collections.unmodifiableMap(results);
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    public int successCount() {
+        return keyCount - failures.size();
+    }
+
+    @Accessors(fluent = true) @Getter @ToString
+    public static class Failure<K> {
+
+        private final K key;
+        private final Throwable cause;
+
+        Failure(K key, Throwable cause) {
+            this.key = key;
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.example.pravega.client.keyvaluetables;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.pravega.client.tables.KeyValueTable;
+import io.pravega.client.tables.TableEntry;
+import io.pravega.client.tables.Version;
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A read-through cache in front of a {@link KeyValueTable}.
+ *
+ * Entries are cached with their versions, and so are keys that do not exist. The cache holds at most a given number
+ * of keys, evicting the least recently used ones, and drops entries that have not been reloaded or written for
+ * {@code expireAfter}. Entries older than {@code revalidateAfter} are still served from the cache, but a read of them
+ * also reloads them in the background; an entry whose version has not changed is kept as it is. Concurrent reads of
+ * a key that is not cached share one request to the table.
+ *
+ * Writes made through the cache update it with the new version, replacing whatever reads stored in the meantime,
+ * since those may have read the key before the write was applied. A conditional {@link #replace} uses the caller's
+ * version, and drops the cached entry if the condition fails, since the cached entry is then out of date. Writes made
+ * to the table by other clients are seen once the cached entries are revalidated.
+ */
+@Slf4j
+public class CachingKeyValueTable<K, V> {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+    public static final Duration DEFAULT_REVALIDATE_AFTER = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_EXPIRE_AFTER = Duration.ofMinutes(5);
+
+    private final KeyValueTable<K, V> table;
+    private final long revalidateAfterNanos;
+    private final Cache<CacheKey, CachedEntry<K, V>> cache;
+    private final ConcurrentHashMap<CacheKey, CompletableFuture<CachedEntry<K, V>>> pendingReads =
+            new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder revalidationCount = new LongAdder();
+
+    public CachingKeyValueTable(@NonNull KeyValueTable<K, V> table) {
+        this(table, DEFAULT_MAXIMUM_SIZE, DEFAULT_REVALIDATE_AFTER, DEFAULT_EXPIRE_AFTER);
+    }
+
+    public CachingKeyValueTable(@NonNull KeyValueTable<K, V> table, long maximumSize,
+                                @NonNull Duration revalidateAfter, @NonNull Duration expireAfter) {
+        Preconditions.checkArgument(maximumSize > 0, "maximumSize must be positive");
+        Preconditions.checkArgument(revalidateAfter.compareTo(expireAfter) <= 0,
+                "revalidateAfter must not exceed expireAfter");
+        this.table = table;
+        this.revalidateAfterNanos = revalidateAfter.toNanos();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter.toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * Gets the entry of the given key, from the cache if it is there. Completes with null if the key does not exist.
+     */
+    public CompletableFuture<TableEntry<K, V>> get(String keyFamily, @NonNull K key) {
+        final CacheKey cacheKey = new CacheKey(keyFamily, key);
+        final CachedEntry<K, V> cached = cache.getIfPresent(cacheKey);
+        if (cached != null) {
+            hitCount.increment();
+            if (System.nanoTime() - cached.storedAt >= revalidateAfterNanos) {
+                revalidationCount.increment();
+                read(cacheKey, keyFamily, key).exceptionally(e -> {
+                    log.warn("Failed to revalidate key {} in key family '{}'; serving the cached entry until it "
+                            + "expires", key, keyFamily, e);
+                    return null;
+                });
+            }
+            return CompletableFuture.completedFuture(cached.entry);
+        }
+        missCount.increment();
+        return read(cacheKey, keyFamily, key).thenApply(c -> c.entry);
+    }
+
+    /**
+     * Puts the given value in the table and caches it with its new version.
+     */
+    public CompletableFuture<Version> put(String keyFamily, @NonNull K key, @NonNull V value) {
+        return write(keyFamily, key, value, () -> table.put(keyFamily, key, value));
+    }
+
+    /**
+     * Replaces the value of the given key if its version in the table is the given one, and caches the new value.
+     */
+    public CompletableFuture<Version> replace(String keyFamily, @NonNull K key, @NonNull V value,
+                                              @NonNull Version version) {
+        return write(keyFamily, key, value, () -> table.replace(keyFamily, key, value, version));
+    }
+
+    /**
+     * Removes the given key from the table, and caches the fact that it does not exist.
+     */
+    public CompletableFuture<Void> remove(String keyFamily, @NonNull K key) {
+        final CacheKey cacheKey = new CacheKey(keyFamily, key);
+        return ConcurrentTasks.call(() -> table.remove(keyFamily, key)).whenComplete((v, e) -> {
+            if (e == null) {
+                storeWritten(cacheKey, null);
+            } else {
+                cache.invalidate(cacheKey);
+            }
+        });
+    }
+
+    public void invalidate(String keyFamily, @NonNull K key) {
+        cache.invalidate(new CacheKey(keyFamily, key));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long revalidationCount() {
+        return revalidationCount.sum();
+    }
+
+    private CompletableFuture<Version> write(String keyFamily, K key, V value,
+                                             Supplier<CompletableFuture<Version>> update) {
+        final CacheKey cacheKey = new CacheKey(keyFamily, key);
+        return ConcurrentTasks.call(update).whenComplete((version, e) -> {
+            if (e == null) {
+                storeWritten(cacheKey, TableEntry.versioned(key, version, value));
+            } else {
+                cache.invalidate(cacheKey);
+            }
+        });
+    }
+
+    /**
+     * Reads the given key from the table into the cache, joining a read of the same key that is already under way.
+     */
+    private CompletableFuture<CachedEntry<K, V>> read(CacheKey cacheKey, String keyFamily, K key) {
+        CompletableFuture<CachedEntry<K, V>> pendingRead = pendingReads.get(cacheKey);
+        if (pendingRead != null) {
+            return pendingRead;
+        }
+        final CompletableFuture<CachedEntry<K, V>> newRead = new CompletableFuture<>();
+        pendingRead = pendingReads.putIfAbsent(cacheKey, newRead);
+        if (pendingRead != null) {
+            return pendingRead;
+        }
+
+        final long requestedAt = System.nanoTime();
+        ConcurrentTasks.call(() -> table.get(keyFamily, key)).whenComplete((entry, e) -> {
+            pendingReads.remove(cacheKey, newRead);
+            if (e == null) {
+                newRead.complete(store(cacheKey, entry, requestedAt));
+            } else {
+                newRead.completeExceptionally(e);
+            }
+        });
+        return newRead;
+    }
+
+    /**
+     * Caches the given entry, written through the cache. It is at least as recent as any entry read so far.
+     */
+    private void storeWritten(CacheKey cacheKey, TableEntry<K, V> entry) {
+        cache.put(cacheKey, new CachedEntry<>(entry, System.nanoTime()));
+    }
+
+    /**
+     * Caches the given entry, read by a request issued at the given time, unless the cached entry was stored after
+     * that time and so is at least as recent.
+     */
+    private CachedEntry<K, V> store(CacheKey cacheKey, TableEntry<K, V> entry, long requestedAt) {
+        return cache.asMap().compute(cacheKey, (k, existing) -> {
+            if (existing != null && existing.storedAt - requestedAt > 0) {
+                return existing;
+            }
+            if (existing != null && existing.hasSameVersionAs(entry)) {
+                return new CachedEntry<>(existing.entry, System.nanoTime());
+            }
+            return new CachedEntry<>(entry, System.nanoTime());
+        });
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class CacheKey {
+
+        private final String keyFamily;
+        private final Object key;
+    }
+
+    private static final class CachedEntry<K, V> {
+
+        /**
+         * The entry, or null if the key does not exist.
+         */
+        private final TableEntry<K, V> entry;
+        private final long storedAt;
+
+        CachedEntry(TableEntry<K, V> entry, long storedAt) {
+            this.entry = entry;
+            this.storedAt = storedAt;
+        }
+
+        boolean hasSameVersionAs(TableEntry<K, V> other) {
+            if (entry == null || other == null) {
+                return entry == other;
+            }
+            return Objects.equals(entry.getKey().getVersion(), other.getKey().getVersion());
+        }
+    }
+}
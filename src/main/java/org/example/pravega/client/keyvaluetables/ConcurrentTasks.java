@@ -0,0 +1,75 @@
+package org.example.pravega.client.keyvaluetables;
+
+import io.pravega.common.concurrent.Futures;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Helpers for running asynchronous table operations.
+ */
+final class ConcurrentTasks {
+
+    private ConcurrentTasks() {
+    }
+
+    /**
+     * Runs the task for each of the given items, starting the next one whenever one of at most
+     * {@code maxConcurrency} outstanding tasks completes. A failed task stops every lane: no further task is started,
+     * and the returned future fails once the tasks already under way have completed.
+     */
+    static <T> CompletableFuture<Void> runAll(List<T> items, int maxConcurrency,
+                                              Function<T, CompletableFuture<?>> task) {
+        final AtomicInteger nextItem = new AtomicInteger(0);
+        final CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(maxConcurrency, items.size())];
+        for (int i = 0; i < lanes.length; i++) {
+            CompletableFuture<Void> lane = new CompletableFuture<>();
+            runNext(items, nextItem, task, lane);
+            lanes[i] = lane;
+        }
+        return CompletableFuture.allOf(lanes);
+    }
+
+    /**
+     * Runs the next items in the given lane. Tasks that complete synchronously, e.g. on a cache hit, are followed in
+     * a loop rather than by chaining futures, which would nest one call per item and could overflow the stack; only a
+     * pending task resumes the lane from its callback.
+     */
+    private static <T> void runNext(List<T> items, AtomicInteger nextItem, Function<T, CompletableFuture<?>> task,
+                                    CompletableFuture<Void> lane) {
+        while (true) {
+            int index = nextItem.getAndIncrement();
+            if (index >= items.size()) {
+                lane.complete(null);
+                return;
+            }
+            CompletableFuture<?> future = call(() -> task.apply(items.get(index)));
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                future.whenComplete((v, e) -> {
+                    if (e != null) {
+                        nextItem.set(items.size());
+                        lane.completeExceptionally(e);
+                    } else {
+                        runNext(items, nextItem, task, lane);
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the future of the given call, or a failed future if the call throws, for instance on a key or value
+     * that is too long.
+     */
+    static <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return Futures.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.pravega.client.keyvaluetables;
+
+import com.google.common.base.Preconditions;
+import io.pravega.client.stream.Serializer;
+import io.pravega.client.tables.KeyValueTable;
+import io.pravega.client.tables.TableEntry;
+import io.pravega.common.Exceptions;
+import io.pravega.common.concurrent.ExecutorServiceHelpers;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exports the entries of a {@link KeyValueTable} to a local file, iterating over several key families in parallel.
+ *
+ * Each key family is read with its own entry iterator, a page at a time, and each page is appended to the file as it
+ * arrives, so no more than one page per key family being exported is held in memory. The file is a sequence of
+ * length-prefixed blocks, one per page, each naming its key family and holding the serialized keys and values of its
+ * entries. It is written to a temporary file first, and moved in place once the export is complete.
+ *
+ * If a key family fails to export, the key families under way stop at their next page, those not started yet are
+ * skipped, and the temporary file is deleted; the export then fails with the first error, leaving any existing file
+ * in place.
+ */
+@Slf4j
+public class KeyValueTableExporter<K, V> {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    // "PKVT"
+    private static final int MAGIC = 0x504B5654;
+    private static final int FORMAT_VERSION = 1;
+
+    private final KeyValueTable<K, V> table;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final int parallelism;
+    private final int pageSize;
+
+    public KeyValueTableExporter(@NonNull KeyValueTable<K, V> table, @NonNull Serializer<K> keySerializer,
+                                 @NonNull Serializer<V> valueSerializer) {
+        this(table, keySerializer, valueSerializer, Runtime.getRuntime().availableProcessors(), DEFAULT_PAGE_SIZE);
+    }
+
+    public KeyValueTableExporter(@NonNull KeyValueTable<K, V> table, @NonNull Serializer<K> keySerializer,
+                                 @NonNull Serializer<V> valueSerializer, int parallelism, int pageSize) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+        Preconditions.checkArgument(pageSize > 0, "pageSize must be positive");
+        this.table = table;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.parallelism = parallelism;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Exports all the entries of the given key families to the given file, replacing it if it exists.
+     *
+     * @return the number of entries exported from each key family
+     */
+    public Map<String, Long> export(@NonNull Collection<String> keyFamilies, @NonNull Path file) {
+        final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        final Map<String, Long> entryCounts = new ConcurrentHashMap<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final ScheduledExecutorService executor = ExecutorServiceHelpers.newScheduledThreadPool(parallelism,
+                "kvt-export");
+        final long startTime = System.nanoTime();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                List<String> keyFamilyList = new ArrayList<>(keyFamilies);
+                ConcurrentTasks.runAll(keyFamilyList, parallelism, keyFamily -> {
+                    entryCounts.put(keyFamily, 0L);
+                    return ConcurrentTasks.call(() -> table.entryIterator(keyFamily, pageSize, null)
+                            .forEachRemaining(page -> {
+                                if (failure.get() != null) {
+                                    throw new CancellationException("Export of another key family failed");
+                                }
+                                writePage(out, keyFamily, page.getItems());
+                                entryCounts.merge(keyFamily, (long) page.getItems().size(), Long::sum);
+                            }, executor))
+                            .whenComplete((v, e) -> {
+                                if (e != null) {
+                                    failure.compareAndSet(null, Exceptions.unwrap(e));
+                                }
+                            });
+                }).join();
+                out.writeBoolean(false);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (CompletionException e) {
+            // Key families cancelled because of the first failure may have completed first.
+            throw Exceptions.sneakyThrow(failure.get() != null ? failure.get() : Exceptions.unwrap(e));
+        } finally {
+            ExecutorServiceHelpers.shutdown(executor);
+            deleteIfExists(tempFile);
+        }
+        log.info("Exported {} entries of {} key families to {} in {} ms",
+                entryCounts.values().stream().mapToLong(Long::longValue).sum(), entryCounts.size(), file,
+                (System.nanoTime() - startTime) / 1_000_000);
+        return new TreeMap<>(entryCounts);
+    }
+
+    /**
+     * Reads back a file written by {@link #export}, passing each entry to the given consumer.
+     *
+     * @return the number of entries read
+     */
+    public static <K, V> long read(@NonNull Path file, @NonNull Serializer<K> keySerializer,
+                                   @NonNull Serializer<V> valueSerializer, @NonNull EntryConsumer<K, V> consumer) {
+        long entryCount = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            Preconditions.checkState(in.readInt() == MAGIC, "%s is not a key-value table export", file);
+            int version = in.readInt();
+            Preconditions.checkState(version == FORMAT_VERSION, "Unsupported export version %s in %s", version, file);
+            while (in.readBoolean()) {
+                String keyFamily = in.readUTF();
+                int pageEntryCount = in.readInt();
+                for (int i = 0; i < pageEntryCount; i++) {
+                    K key = keySerializer.deserialize(readBuffer(in));
+                    V value = valueSerializer.deserialize(readBuffer(in));
+                    consumer.accept(keyFamily, key, value);
+                }
+                entryCount += pageEntryCount;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entryCount;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<K, V> {
+        void accept(String keyFamily, K key, V value);
+    }
+
+    private void writePage(DataOutputStream out, String keyFamily, List<TableEntry<K, V>> entries) {
+        // Serialize outside the lock, so that pages of other key families can be written meanwhile.
+        final List<ByteBuffer> serialized = new ArrayList<>(entries.size() * 2);
+        for (TableEntry<K, V> entry : entries) {
+            serialized.add(keySerializer.serialize(entry.getKey().getKey()));
+            serialized.add(valueSerializer.serialize(entry.getValue()));
+        }
+        synchronized (out) {
+            try {
+                out.writeBoolean(true);
+                out.writeUTF(keyFamily);
+                out.writeInt(entries.size());
+                for (ByteBuffer buffer : serialized) {
+                    writeBuffer(out, buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void writeBuffer(DataOutputStream out, ByteBuffer buffer) throws IOException {
+        out.writeInt(buffer.remaining());
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            out.write(bytes);
+        }
+    }
+
+    private static ByteBuffer readBuffer(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static void deleteIfExists(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", file, e);
+        }
+    }
+}
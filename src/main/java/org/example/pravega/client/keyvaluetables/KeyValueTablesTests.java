@@ -1,21 +1,54 @@
 package org.example.pravega.client.keyvaluetables;
 
+import com.google.common.collect.Iterables;
 import io.pravega.client.ClientConfig;
 import io.pravega.client.KeyValueTableFactory;
 import io.pravega.client.admin.KeyValueTableManager;
 import io.pravega.client.admin.StreamManager;
 import io.pravega.client.stream.impl.DefaultCredentials;
 import io.pravega.client.stream.impl.UTF8StringSerializer;
+import io.pravega.client.tables.BadKeyVersionException;
+import io.pravega.client.tables.IteratorItem;
 import io.pravega.client.tables.KeyValueTable;
 import io.pravega.client.tables.KeyValueTableClientConfiguration;
 import io.pravega.client.tables.KeyValueTableConfiguration;
 import io.pravega.client.tables.TableEntry;
+import io.pravega.client.tables.Version;
+import io.pravega.client.tables.impl.TableSegmentKeyVersion;
+import io.pravega.client.tables.impl.VersionImpl;
+import io.pravega.common.Exceptions;
+import io.pravega.common.util.AsyncIterator;
 import lombok.Cleanup;
 import lombok.extern.slf4j.Slf4j;
 import org.example.pravega.shared.StandaloneServerTlsConstants;
+import org.junit.After;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.lang.reflect.Proxy;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import static org.junit.Assert.*;
 
@@ -26,6 +59,8 @@ public class KeyValueTablesTests {
     private static String CONTROLLER_HOST = "localhost";
     private static int PORT = 9090;
 
+    private final Deque<AutoCloseable> closeables = new ArrayDeque<>();
+
     @Test
     public void createTableAndAddAnEntryNoSecurity() {
         String scopeName = "testScope" + Math.random();
@@ -147,6 +182,334 @@ public class KeyValueTablesTests {
         assertEquals(value, entry.getValue());
     }
 
+    @Test
+    public void createTableAndAddEntriesInBulkNoSecurity() {
+        String scopeName = "testScope" + Math.random();
+        String tableName = "testTable";
+        String keyFamily = "profile";
+        int entryCount = 10000;
+
+        ClientConfig clientConfig = ClientConfig.builder()
+                .controllerURI(controllerUri(false))
+                .build();
+
+        KeyValueTable<String, String> table = createTable(clientConfig, scopeName, tableName, 4);
+        BulkKeyValueTable<String, String> bulkTable = new BulkKeyValueTable<>(table);
+
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < entryCount; i++) {
+            entries.put("key" + i, "value" + i);
+        }
+        BulkResult<String, Version> putResult = bulkTable.putAll(keyFamily, entries).join();
+        log.debug("Added {} entries to the table", putResult.successCount());
+        assertTrue(putResult.isSuccessful());
+
+        BulkResult<String, TableEntry<String, String>> getResult =
+                bulkTable.getAll(keyFamily, entries.keySet()).join();
+        log.debug("Retrieved {} entries from the table", getResult.results().size());
+        assertTrue(getResult.isSuccessful());
+        assertEquals(entryCount, getResult.results().size());
+        entries.forEach((key, value) -> assertEquals(value, getResult.results().get(key).getValue()));
+    }
+
+    @Test
+    public void readEntriesThroughACacheNoSecurity() throws InterruptedException {
+        String scopeName = "testScope" + Math.random();
+        String tableName = "testTable";
+        String keyFamily = "profile";
+        String key = "firstName";
+
+        ClientConfig clientConfig = ClientConfig.builder()
+                .controllerURI(controllerUri(false))
+                .build();
+
+        KeyValueTable<String, String> table = createTable(clientConfig, scopeName, tableName, 1);
+        Duration revalidateAfter = Duration.ofMillis(100);
+        CachingKeyValueTable<String, String> cachedTable = new CachingKeyValueTable<>(table,
+                CachingKeyValueTable.DEFAULT_MAXIMUM_SIZE, revalidateAfter, CachingKeyValueTable.DEFAULT_EXPIRE_AFTER);
+
+        assertNull(cachedTable.get(keyFamily, key).join());
+        Version version = cachedTable.put(keyFamily, key, "john").join();
+
+        for (int i = 0; i < 10; i++) {
+            TableEntry<String, String> entry = cachedTable.get(keyFamily, key).join();
+            assertEquals("john", entry.getValue());
+            assertEquals(version, entry.getKey().getVersion());
+        }
+        assertEquals(1, cachedTable.missCount());
+        assertEquals(10, cachedTable.hitCount());
+
+        // A write with an outdated version fails, and drops the key from the cache.
+        cachedTable.replace(keyFamily, key, "jane", version).join();
+        try {
+            cachedTable.replace(keyFamily, key, "jim", version).join();
+            fail("Expected the replace to fail");
+        } catch (CompletionException e) {
+            assertTrue(Exceptions.unwrap(e) instanceof BadKeyVersionException);
+        }
+        assertEquals("jane", cachedTable.get(keyFamily, key).join().getValue());
+        assertEquals(2, cachedTable.missCount());
+
+        // A write made by another client is served stale at first, then picked up once the entry is revalidated.
+        KeyValueTable<String, String> otherTable = openTable(clientConfig, scopeName, tableName);
+        Version otherVersion = otherTable.put(keyFamily, key, "joe").join();
+        assertEquals("jane", cachedTable.get(keyFamily, key).join().getValue());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        TableEntry<String, String> entry;
+        do {
+            Thread.sleep(revalidateAfter.toMillis());
+            entry = cachedTable.get(keyFamily, key).join();
+        } while (!"joe".equals(entry.getValue()) && System.nanoTime() < deadline);
+        assertEquals("joe", entry.getValue());
+        assertEquals(otherVersion, entry.getKey().getVersion());
+        assertTrue(cachedTable.revalidationCount() > 0);
+        assertEquals(2, cachedTable.missCount());
+    }
+
+    @Test
+    public void cacheKeepsAWriteThatCompletesAfterAConcurrentRead() {
+        String keyFamily = "profile";
+        String key = "firstName";
+        CompletableFuture<TableEntry<String, String>> slowGet = new CompletableFuture<>();
+        CompletableFuture<Version> slowPut = new CompletableFuture<>();
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("get", args -> slowGet);
+        methods.put("put", args -> slowPut);
+        CachingKeyValueTable<String, String> cachedTable = new CachingKeyValueTable<>(fakeTable(methods));
+
+        // A read issued after the put still sees the entry from before it, and is cached first.
+        CompletableFuture<Version> put = cachedTable.put(keyFamily, key, "joe");
+        CompletableFuture<TableEntry<String, String>> get = cachedTable.get(keyFamily, key);
+        slowGet.complete(TableEntry.versioned(key, version(1), "jane"));
+        assertEquals("jane", get.join().getValue());
+
+        slowPut.complete(version(2));
+        assertEquals(version(2), put.join());
+        TableEntry<String, String> entry = cachedTable.get(keyFamily, key).join();
+        assertEquals("joe", entry.getValue());
+        assertEquals(version(2), entry.getKey().getVersion());
+        assertEquals(1, cachedTable.hitCount());
+    }
+
+    @Test
+    public void writeEntriesBehindNoSecurity() {
+        String scopeName = "testScope" + Math.random();
+        String tableName = "testTable";
+        String keyFamily = "counters";
+        String key = "visits";
+
+        ClientConfig clientConfig = ClientConfig.builder()
+                .controllerURI(controllerUri(false))
+                .build();
+
+        KeyValueTable<String, String> table = createTable(clientConfig, scopeName, tableName, 1);
+
+        List<BulkResult<String, Version>> flushed = new CopyOnWriteArrayList<>();
+        @Cleanup
+        WriteBehindKeyValueTable<String, String> writeBehindTable = new WriteBehindKeyValueTable<>(table,
+                WriteBehindKeyValueTable.DEFAULT_MAX_BUFFERED_KEYS, Duration.ofMinutes(1),
+                (family, result) -> flushed.add(result));
+
+        for (int i = 1; i <= 100; i++) {
+            writeBehindTable.put(keyFamily, key, String.valueOf(i));
+        }
+        assertEquals(99, writeBehindTable.coalescedPutCount());
+        assertEquals("100", writeBehindTable.get(keyFamily, key).join().getValue());
+
+        writeBehindTable.flush().join();
+        log.debug("Flushed {} batches", flushed.size());
+        assertEquals(1, flushed.size());
+        assertEquals(1, flushed.get(0).keyCount());
+        assertEquals("100", table.get(keyFamily, key).join().getValue());
+    }
+
+    @Test
+    public void writeBehindBlocksWhenTooManyFlushesArePending() throws Exception {
+        BlockingQueue<Runnable> pendingWrites = new LinkedBlockingQueue<>();
+        WriteBehindKeyValueTable<String, String> writeBehindTable = new WriteBehindKeyValueTable<>(
+                manuallyWrittenTable(pendingWrites), 1, 2, Duration.ofMinutes(1), (family, result) -> { });
+
+        // Each put fills the buffer and starts a flush, until two are pending; the second is written after the first.
+        List<CompletableFuture<Version>> puts = new ArrayList<>();
+        puts.add(writeBehindTable.put("counters", "a", "1"));
+        puts.add(writeBehindTable.put("counters", "b", "1"));
+        assertEquals(2, writeBehindTable.pendingFlushCount());
+        assertEquals(1, pendingWrites.size());
+
+        @Cleanup("shutdownNow")
+        ExecutorService putter = Executors.newSingleThreadExecutor();
+        Future<CompletableFuture<Version>> blockedPut = putter.submit(() -> writeBehindTable.put("counters", "c", "1"));
+        Thread.sleep(200);
+        assertFalse("The put should wait for a pending flush", blockedPut.isDone());
+
+        // Writing the oldest flush lets the blocked put start the next one.
+        pendingWrites.take().run();
+        puts.add(blockedPut.get(10, TimeUnit.SECONDS));
+        assertEquals(2, writeBehindTable.pendingFlushCount());
+
+        for (int i = 0; i < 2; i++) {
+            pendingWrites.poll(10, TimeUnit.SECONDS).run();
+        }
+        for (CompletableFuture<Version> put : puts) {
+            assertEquals(Version.NO_VERSION, put.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, writeBehindTable.pendingFlushCount());
+        writeBehindTable.close();
+    }
+
+    @Test
+    public void exportTableToAFileNoSecurity() throws IOException {
+        String scopeName = "testScope" + Math.random();
+        String tableName = "testTable";
+        List<String> keyFamilies = Arrays.asList("profile", "address", "preferences");
+        int entriesPerKeyFamily = 2500;
+
+        ClientConfig clientConfig = ClientConfig.builder()
+                .controllerURI(controllerUri(false))
+                .build();
+
+        KeyValueTable<String, String> table = createTable(clientConfig, scopeName, tableName, 4);
+
+        BulkKeyValueTable<String, String> bulkTable = new BulkKeyValueTable<>(table);
+        for (String keyFamily : keyFamilies) {
+            Map<String, String> entries = new HashMap<>();
+            for (int i = 0; i < entriesPerKeyFamily; i++) {
+                entries.put("key" + i, keyFamily + i);
+            }
+            assertTrue(bulkTable.putAll(keyFamily, entries).join().isSuccessful());
+        }
+
+        Path exportFile = Files.createTempDirectory("kvt-export").resolve(tableName + ".bin");
+        Map<String, Long> entryCounts = new KeyValueTableExporter<>(table, new UTF8StringSerializer(),
+                new UTF8StringSerializer()).export(keyFamilies, exportFile);
+        log.debug("Exported {} to {}", entryCounts, exportFile);
+        keyFamilies.forEach(keyFamily -> assertEquals(entriesPerKeyFamily, (long) entryCounts.get(keyFamily)));
+
+        long entryCount = KeyValueTableExporter.read(exportFile, new UTF8StringSerializer(),
+                new UTF8StringSerializer(), (keyFamily, key, value) ->
+                        assertEquals(keyFamily + key.substring("key".length()), value));
+        assertEquals(entriesPerKeyFamily * keyFamilies.size(), entryCount);
+    }
+
+    @Test(timeout = 30000)
+    public void exportStopsAtTheFirstFailure() throws IOException {
+        // "endless" never runs out of pages, "broken" fails on its second page, and "skipped" should not be started.
+        List<String> startedKeyFamilies = new CopyOnWriteArrayList<>();
+        KeyValueTable<String, String> table = fakeTable("entryIterator", args -> {
+            String keyFamily = (String) args[0];
+            startedKeyFamilies.add(keyFamily);
+            AtomicInteger pageCount = new AtomicInteger();
+            return (AsyncIterator<IteratorItem<TableEntry<String, String>>>) () -> CompletableFuture.supplyAsync(() -> {
+                if (keyFamily.equals("broken") && pageCount.incrementAndGet() > 1) {
+                    throw new IllegalStateException("Failed to read " + keyFamily);
+                }
+                return new IteratorItem<>(null, Collections.singletonList(TableEntry.unversioned("key", "value")));
+            });
+        });
+
+        Path exportFile = Files.createTempDirectory("kvt-export").resolve("export.bin");
+        KeyValueTableExporter<String, String> exporter = new KeyValueTableExporter<>(table,
+                new UTF8StringSerializer(), new UTF8StringSerializer(), 2, 1);
+        try {
+            exporter.export(Arrays.asList("endless", "broken", "skipped"), exportFile);
+            fail("Expected the export to fail");
+        } catch (IllegalStateException e) {
+            assertEquals("Failed to read broken", e.getMessage());
+        }
+        assertEquals(Arrays.asList("endless", "broken"), startedKeyFamilies);
+        assertFalse(Files.exists(exportFile));
+        assertFalse(Files.exists(exportFile.resolveSibling(exportFile.getFileName() + ".tmp")));
+    }
+
+    @Test
+    public void runManyTasksThatCompleteSynchronously() {
+        List<Integer> items = Collections.nCopies(100_000, 0);
+        AtomicInteger runCount = new AtomicInteger();
+        ConcurrentTasks.runAll(items, 4, item -> {
+            runCount.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }).join();
+        assertEquals(items.size(), runCount.get());
+    }
+
+    /**
+     * Creates the scope and the table, and opens the table. The clients are closed after the test.
+     */
+    private KeyValueTable<String, String> createTable(ClientConfig clientConfig, String scopeName, String tableName,
+                                                      int partitionCount) {
+        createScope(scopeName, clientConfig);
+
+        KeyValueTableManager keyValueTableManager = closeAfterTest(KeyValueTableManager.create(clientConfig));
+        boolean result = keyValueTableManager.createKeyValueTable(scopeName, tableName,
+                KeyValueTableConfiguration.builder().partitionCount(partitionCount).build());
+        log.debug("Created table {}", tableName);
+        assertTrue(result);
+
+        return openTable(clientConfig, scopeName, tableName);
+    }
+
+    /**
+     * Opens an existing table through a client factory of its own.
+     */
+    private KeyValueTable<String, String> openTable(ClientConfig clientConfig, String scopeName, String tableName) {
+        KeyValueTableFactory factory = closeAfterTest(KeyValueTableFactory.withScope(scopeName, clientConfig));
+        return closeAfterTest(factory.forKeyValueTable(tableName, new UTF8StringSerializer(),
+                new UTF8StringSerializer(), KeyValueTableClientConfiguration.builder().build()));
+    }
+
+    /**
+     * Returns a table whose putAll only completes when the test runs the write it adds to the given queue.
+     */
+    private static KeyValueTable<String, String> manuallyWrittenTable(BlockingQueue<Runnable> pendingWrites) {
+        return fakeTable("putAll", args -> {
+            CompletableFuture<List<Version>> write = new CompletableFuture<>();
+            int keyCount = Iterables.size((Iterable<?>) args[1]);
+            pendingWrites.add(() -> write.complete(Collections.nCopies(keyCount, Version.NO_VERSION)));
+            return write;
+        });
+    }
+
+    /**
+     * Returns a table that implements the given method, without a cluster. It can be closed, and does not support
+     * any other operation.
+     */
+    private static KeyValueTable<String, String> fakeTable(String methodName, Function<Object[], Object> method) {
+        return fakeTable(Collections.singletonMap(methodName, method));
+    }
+
+    /**
+     * Returns a table that implements the given methods, by name, without a cluster.
+     */
+    @SuppressWarnings("unchecked")
+    private static KeyValueTable<String, String> fakeTable(Map<String, Function<Object[], Object>> methods) {
+        return (KeyValueTable<String, String>) Proxy.newProxyInstance(KeyValueTable.class.getClassLoader(),
+                new Class<?>[]{KeyValueTable.class}, (proxy, invoked, args) -> {
+                    if (methods.containsKey(invoked.getName())) {
+                        return methods.get(invoked.getName()).apply(args);
+                    } else if (invoked.getName().equals("close")) {
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(invoked.getName());
+                });
+    }
+
+    private static Version version(long segmentVersion) {
+        return new VersionImpl(0, TableSegmentKeyVersion.from(segmentVersion));
+    }
+
+    private <T extends AutoCloseable> T closeAfterTest(T closeable) {
+        closeables.push(closeable);
+        return closeable;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        while (!closeables.isEmpty()) {
+            closeables.pop().close();
+        }
+    }
+
     private boolean createScope(String scopeName, ClientConfig clientConfig) {
         @Cleanup
         StreamManager streamManager = StreamManager.create(clientConfig);
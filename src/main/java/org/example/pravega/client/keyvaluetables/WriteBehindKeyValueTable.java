@@ -0,0 +1,257 @@
+package org.example.pravega.client.keyvaluetables;
+
+import com.google.common.base.Preconditions;
+import io.pravega.client.tables.KeyValueTable;
+import io.pravega.client.tables.TableEntry;
+import io.pravega.client.tables.Version;
+import io.pravega.common.concurrent.ExecutorServiceHelpers;
+import io.pravega.common.concurrent.Futures;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Buffers puts to a {@link KeyValueTable} in memory and writes them in batches.
+ *
+ * Repeated puts to a key between two flushes are coalesced, so only the latest value is written. The buffer is
+ * flushed when it holds {@code maxBufferedKeys} keys, every {@code flushInterval}, on {@link #flush()} and on
+ * {@link #close()}. Flushes are written one after another, in the order they were started, so a later value of a key
+ * is never overwritten by an earlier one.
+ *
+ * At most {@code maxPendingFlushes} flushes may be under way at a time, so the table holds at most about
+ * {@code (maxPendingFlushes + 1) * maxBufferedKeys} keys in memory. Once that many are, a flush waits for the oldest
+ * one to be written, and so do the puts that fill the buffer: callers are slowed down to the rate at which the table
+ * takes the writes, instead of buffering without bound. For the same reason the durability listener must not put
+ * values itself.
+ *
+ * The future returned by a put completes once the value, or a later value of the same key, has been written, and
+ * fails if that write fails; failed values are not retried. The durability listener is told the outcome of every
+ * batch that is written, for each key family.
+ */
+@Slf4j
+public class WriteBehindKeyValueTable<K, V> implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_BUFFERED_KEYS = 10_000;
+    public static final int DEFAULT_MAX_PENDING_FLUSHES = 4;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+    private final KeyValueTable<K, V> table;
+    private final BulkKeyValueTable<K, V> bulkTable;
+    private final int maxBufferedKeys;
+    private final int maxPendingFlushes;
+    private final BiConsumer<String, BulkResult<K, Version>> durabilityListener;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    private Map<String, Map<K, BufferedPut<V>>> buffer = new HashMap<>();
+    // Buffers of flushes that are being written, oldest first.
+    private final Deque<Map<String, Map<K, BufferedPut<V>>>> writing = new ArrayDeque<>();
+    private int bufferedKeyCount = 0;
+    private long coalescedPutCount = 0;
+    private CompletableFuture<Void> lastFlush = CompletableFuture.completedFuture(null);
+    private boolean closed = false;
+
+    public WriteBehindKeyValueTable(@NonNull KeyValueTable<K, V> table) {
+        this(table, DEFAULT_MAX_BUFFERED_KEYS, DEFAULT_FLUSH_INTERVAL, (keyFamily, result) -> { });
+    }
+
+    public WriteBehindKeyValueTable(@NonNull KeyValueTable<K, V> table, int maxBufferedKeys,
+                                    @NonNull Duration flushInterval,
+                                    @NonNull BiConsumer<String, BulkResult<K, Version>> durabilityListener) {
+        this(table, maxBufferedKeys, DEFAULT_MAX_PENDING_FLUSHES, flushInterval, durabilityListener);
+    }
+
+    public WriteBehindKeyValueTable(@NonNull KeyValueTable<K, V> table, int maxBufferedKeys, int maxPendingFlushes,
+                                    @NonNull Duration flushInterval,
+                                    @NonNull BiConsumer<String, BulkResult<K, Version>> durabilityListener) {
+        Preconditions.checkArgument(maxBufferedKeys > 0, "maxBufferedKeys must be positive");
+        Preconditions.checkArgument(maxPendingFlushes > 0, "maxPendingFlushes must be positive");
+        Preconditions.checkArgument(!flushInterval.isNegative() && !flushInterval.isZero(),
+                "flushInterval must be positive");
+        this.table = table;
+        this.bulkTable = new BulkKeyValueTable<>(table);
+        this.maxBufferedKeys = maxBufferedKeys;
+        this.maxPendingFlushes = maxPendingFlushes;
+        this.durabilityListener = durabilityListener;
+        this.executor = ExecutorServiceHelpers.newScheduledThreadPool(1, "write-behind");
+        this.executor.scheduleWithFixedDelay(this::flushIfNotEmpty, flushInterval.toMillis(),
+                flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers the given value, replacing any value of the same key that has not been written yet. Blocks while the
+     * buffer is full and {@code maxPendingFlushes} flushes are under way.
+     */
+    public CompletableFuture<Version> put(String keyFamily, @NonNull K key, @NonNull V value) {
+        final BufferedPut<V> put;
+        final boolean bufferFull;
+        synchronized (lock) {
+            Preconditions.checkState(!closed, "Table has been closed");
+            Map<K, BufferedPut<V>> keyFamilyBuffer = buffer.computeIfAbsent(keyFamily, kf -> new LinkedHashMap<>());
+            BufferedPut<V> replaced = keyFamilyBuffer.get(key);
+            if (replaced == null) {
+                put = new BufferedPut<>(value, new CompletableFuture<>());
+                bufferedKeyCount++;
+            } else {
+                // Callers that put earlier values learn of the write of this one.
+                put = new BufferedPut<>(value, replaced.written);
+                coalescedPutCount++;
+            }
+            keyFamilyBuffer.put(key, put);
+            bufferFull = bufferedKeyCount >= maxBufferedKeys;
+        }
+        if (bufferFull) {
+            flush();
+        }
+        return put.written;
+    }
+
+    /**
+     * Gets the entry of the given key, taking buffered values into account. A buffered value is returned without a
+     * version, since it has none yet.
+     */
+    public CompletableFuture<TableEntry<K, V>> get(String keyFamily, @NonNull K key) {
+        synchronized (lock) {
+            BufferedPut<V> put = find(buffer, keyFamily, key);
+            for (Iterator<Map<String, Map<K, BufferedPut<V>>>> i = writing.descendingIterator();
+                 put == null && i.hasNext(); ) {
+                put = find(i.next(), keyFamily, key);
+            }
+            if (put != null) {
+                return CompletableFuture.completedFuture(TableEntry.unversioned(key, put.value));
+            }
+        }
+        return table.get(keyFamily, key);
+    }
+
+    /**
+     * Writes all the values buffered so far, and completes once they, and those of earlier flushes, are written.
+     * Values put while the flush is under way are left for the next one. Blocks while {@code maxPendingFlushes}
+     * flushes are under way.
+     */
+    public CompletableFuture<Void> flush() {
+        synchronized (lock) {
+            while (bufferedKeyCount > 0 && writing.size() >= maxPendingFlushes) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Futures.failedFuture(e);
+                }
+            }
+            if (bufferedKeyCount > 0) {
+                final Map<String, Map<K, BufferedPut<V>>> toWrite = buffer;
+                final int keyCount = bufferedKeyCount;
+                buffer = new HashMap<>();
+                bufferedKeyCount = 0;
+                writing.addLast(toWrite);
+                // Failures are reported to the puts, and must not stop later flushes.
+                lastFlush = lastFlush.exceptionally(e -> null)
+                        .thenCompose(v -> write(toWrite, keyCount))
+                        .whenComplete((v, e) -> {
+                            synchronized (lock) {
+                                writing.remove(toWrite);
+                                lock.notifyAll();
+                            }
+                        });
+            }
+            return lastFlush;
+        }
+    }
+
+    /**
+     * Number of flushes that are being written.
+     */
+    public int pendingFlushCount() {
+        synchronized (lock) {
+            return writing.size();
+        }
+    }
+
+    public int bufferedKeyCount() {
+        synchronized (lock) {
+            return bufferedKeyCount;
+        }
+    }
+
+    /**
+     * Number of puts that replaced a buffered value instead of adding a write.
+     */
+    public long coalescedPutCount() {
+        synchronized (lock) {
+            return coalescedPutCount;
+        }
+    }
+
+    /**
+     * Flushes the buffer and waits for all the writes to complete. The underlying table is not closed.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        ExecutorServiceHelpers.shutdown(executor);
+        flush().join();
+    }
+
+    private void flushIfNotEmpty() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Periodic flush failed", e);
+        }
+    }
+
+    private static <K, V> BufferedPut<V> find(Map<String, Map<K, BufferedPut<V>>> puts, String keyFamily, K key) {
+        Map<K, BufferedPut<V>> keyFamilyPuts = puts.get(keyFamily);
+        return keyFamilyPuts == null ? null : keyFamilyPuts.get(key);
+    }
+
+    private CompletableFuture<Void> write(Map<String, Map<K, BufferedPut<V>>> toWrite, int keyCount) {
+        log.debug("Writing {} buffered keys in {} key families", keyCount, toWrite.size());
+        final List<CompletableFuture<Void>> writes = new ArrayList<>();
+        toWrite.forEach((keyFamily, puts) -> {
+            Map<K, V> values = new LinkedHashMap<>();
+            puts.forEach((key, put) -> values.put(key, put.value));
+            writes.add(bulkTable.putAll(keyFamily, values).thenAccept(result -> {
+                result.results().forEach((key, version) -> puts.get(key).written.complete(version));
+                result.failures().forEach(failure -> puts.get(failure.key()).written
+                        .completeExceptionally(failure.cause()));
+                try {
+                    durabilityListener.accept(keyFamily, result);
+                } catch (RuntimeException e) {
+                    log.warn("Durability listener failed for key family '{}'", keyFamily, e);
+                }
+            }));
+        });
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private static final class BufferedPut<V> {
+
+        private final V value;
+        private final CompletableFuture<Version> written;
+
+        BufferedPut(V value, CompletableFuture<Version> written) {
+            this.value = value;
+            this.written = written;
+        }
+    }
+}
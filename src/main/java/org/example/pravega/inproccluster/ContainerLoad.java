@@ -0,0 +1,57 @@
+package org.example.pravega.inproccluster;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Load of one segment container, as seen by {@link ContainerLoadReporter}.
+ */
+@Getter @ToString
+public class ContainerLoad {
+
+    private final int containerId;
+
+    /**
+     * Endpoint of the segment store that runs the container, or null if the controller could not tell.
+     */
+    private String segmentStore = null;
+    private int segmentCount = 0;
+    private int activeSegmentCount = 0;
+
+    /**
+     * Bytes held by the segments of the container, from their heads to their tails.
+     */
+    private long bytes = 0;
+
+    /**
+     * Sum of the tail offsets of the segments of the container, that is, the bytes ever appended to them, including
+     * those truncated since.
+     */
+    private long appendedBytes = 0;
+
+    /**
+     * Rate at which bytes were appended to the container since the previous report, or NaN in the first one.
+     */
+    private double bytesPerSecond = Double.NaN;
+
+    ContainerLoad(int containerId) {
+        this.containerId = containerId;
+    }
+
+    void addSegment(long headOffset, long tailOffset, boolean active) {
+        segmentCount++;
+        if (active) {
+            activeSegmentCount++;
+        }
+        bytes += tailOffset - headOffset;
+        appendedBytes += tailOffset;
+    }
+
+    void segmentStore(String segmentStore) {
+        this.segmentStore = segmentStore;
+    }
+
+    void bytesPerSecond(double bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+}
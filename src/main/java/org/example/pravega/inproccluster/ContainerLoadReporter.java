@@ -0,0 +1,185 @@
+package org.example.pravega.inproccluster;
+
+import io.pravega.client.BatchClientFactory;
+import io.pravega.client.ClientConfig;
+import io.pravega.client.admin.StreamManager;
+import io.pravega.client.batch.SegmentRange;
+import io.pravega.client.control.impl.ControllerImpl;
+import io.pravega.client.control.impl.ControllerImplConfig;
+import io.pravega.client.segment.impl.Segment;
+import io.pravega.client.stream.Stream;
+import io.pravega.common.concurrent.ExecutorServiceHelpers;
+import io.pravega.shared.protocol.netty.PravegaNodeUri;
+import io.pravega.shared.segment.SegmentToContainerMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Reports how the segments of the streams of a cluster are spread over its segment containers, and which segment
+ * store runs each container.
+ *
+ * Segments are mapped to containers the same way the segment stores map them, so the reporter needs the number of
+ * containers of the cluster. For each container, a report gives the segment store that runs it, the number of
+ * segments, how many of them are active, the bytes they hold and, from the second report on, the rate at which bytes
+ * were appended since the previous one. The rate follows the tail offsets of the segments, so truncation does not
+ * lower it; it is reported as zero when segments were deleted meanwhile. Internal streams, such as the state streams
+ * of reader groups, are left out.
+ *
+ * The owner of a container is asked of the controller for a segment name that maps to it, whether or not such a
+ * segment exists, so that containers without segments, e.g. right after the cluster started, are placed too.
+ */
+@Slf4j
+public class ContainerLoadReporter implements AutoCloseable {
+
+    // Scope and stream of the segment names used to ask which segment store runs a container.
+    private static final String PROBE_SCOPE = "_containerProbe";
+    private static final String PROBE_STREAM = "_containerProbe";
+
+    private final ClientConfig clientConfig;
+    private final SegmentToContainerMapper containerMapper;
+    private final String[] probeSegments;
+    private final ScheduledExecutorService executor;
+    private final StreamManager streamManager;
+    private final ControllerImpl controller;
+
+    private long[] previousAppendedBytes = null;
+    private long previousReportTime;
+
+    public ContainerLoadReporter(ClientConfig clientConfig, int containerCount) {
+        this.clientConfig = clientConfig;
+        this.containerMapper = new SegmentToContainerMapper(containerCount);
+        this.probeSegments = probeSegments(containerMapper);
+        this.executor = ExecutorServiceHelpers.newScheduledThreadPool(1, "container-load");
+        this.streamManager = StreamManager.create(clientConfig);
+        this.controller = new ControllerImpl(ControllerImplConfig.builder().clientConfig(clientConfig).build(),
+                executor);
+    }
+
+    /**
+     * Computes the load of every container, and logs it along with the totals of every segment store.
+     */
+    public synchronized List<ContainerLoad> report() {
+        final List<ContainerLoad> loads = new ArrayList<>();
+        for (int i = 0; i < containerMapper.getTotalContainerCount(); i++) {
+            loads.add(new ContainerLoad(i));
+        }
+        int streamCount = 0;
+        for (Iterator<String> scopes = streamManager.listScopes(); scopes.hasNext(); ) {
+            String scope = scopes.next();
+            try (BatchClientFactory batchClient = BatchClientFactory.withScope(scope, clientConfig)) {
+                for (Iterator<Stream> streams = streamManager.listStreams(scope); streams.hasNext(); ) {
+                    Stream stream = streams.next();
+                    if (stream.getStreamName().startsWith("_")) {
+                        continue;
+                    }
+                    try {
+                        addStream(loads, batchClient, stream);
+                        streamCount++;
+                    } catch (RuntimeException e) {
+                        // The stream may have been deleted meanwhile.
+                        log.debug("Skipping stream {}", stream, e);
+                    }
+                }
+            }
+        }
+
+        for (ContainerLoad load : loads) {
+            load.segmentStore(segmentStoreOf(load.getContainerId()));
+        }
+
+        final long now = System.nanoTime();
+        if (previousAppendedBytes != null) {
+            double seconds = Math.max(1, now - previousReportTime) / 1e9;
+            for (ContainerLoad load : loads) {
+                long appended = load.getAppendedBytes() - previousAppendedBytes[load.getContainerId()];
+                load.bytesPerSecond(Math.max(0, appended) / seconds);
+            }
+        }
+        previousAppendedBytes = loads.stream().mapToLong(ContainerLoad::getAppendedBytes).toArray();
+        previousReportTime = now;
+
+        log.info("Load of {} containers over {} streams:{}", loads.size(), streamCount, format(loads));
+        return loads;
+    }
+
+    private void addStream(List<ContainerLoad> loads, BatchClientFactory batchClient, Stream stream) {
+        final Set<Segment> activeSegments = new HashSet<>(
+                controller.getCurrentSegments(stream.getScope(), stream.getStreamName()).join().getSegments());
+        for (Iterator<SegmentRange> ranges = batchClient.getSegments(stream, null, null).getIterator();
+             ranges.hasNext(); ) {
+            SegmentRange range = ranges.next();
+            Segment segment = new Segment(range.getScope(), range.getStreamName(), range.getSegmentId());
+            ContainerLoad load = loads.get(containerMapper.getContainerId(segment.getScopedName()));
+            load.addSegment(range.getStartOffset(), range.getEndOffset(), activeSegments.contains(segment));
+        }
+    }
+
+    private String segmentStoreOf(int containerId) {
+        try {
+            PravegaNodeUri endpoint = controller.getEndpointForSegment(probeSegments[containerId]).join();
+            return endpoint.getEndpoint() + ":" + endpoint.getPort();
+        } catch (RuntimeException e) {
+            log.debug("Failed to find the segment store of container {}", containerId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns, for each container, the name of a segment that maps to it.
+     */
+    private static String[] probeSegments(SegmentToContainerMapper containerMapper) {
+        final String[] probeSegments = new String[containerMapper.getTotalContainerCount()];
+        int missing = probeSegments.length;
+        for (long segmentId = 0; missing > 0; segmentId++) {
+            String segmentName = new Segment(PROBE_SCOPE, PROBE_STREAM, segmentId).getScopedName();
+            int containerId = containerMapper.getContainerId(segmentName);
+            if (probeSegments[containerId] == null) {
+                probeSegments[containerId] = segmentName;
+                missing--;
+            }
+        }
+        return probeSegments;
+    }
+
+    private static String format(List<ContainerLoad> loads) {
+        final StringBuilder report = new StringBuilder(String.format("%n%10s %-22s %9s %7s %14s %12s",
+                "container", "segment store", "segments", "active", "bytes", "bytes/s"));
+        final Map<String, long[]> stores = new TreeMap<>();
+        for (ContainerLoad load : loads) {
+            String store = load.getSegmentStore() == null ? "-" : load.getSegmentStore();
+            report.append(String.format("%n%10d %-22s %9d %7d %14d %12s", load.getContainerId(), store,
+                    load.getSegmentCount(), load.getActiveSegmentCount(), load.getBytes(),
+                    rate(load.getBytesPerSecond())));
+            if (load.getSegmentStore() == null) {
+                continue;
+            }
+            long[] totals = stores.computeIfAbsent(store, s -> new long[3]);
+            totals[0]++;
+            totals[1] += load.getSegmentCount();
+            totals[2] += load.getBytes();
+        }
+        stores.forEach((store, totals) -> report.append(String.format(
+                "%nSegment store %s: %d containers, %d segments, %d bytes",
+                store, totals[0], totals[1], totals[2])));
+        return report.toString();
+    }
+
+    private static String rate(double bytesPerSecond) {
+        return Double.isNaN(bytesPerSecond) ? "-" : String.format("%.0f", bytesPerSecond);
+    }
+
+    @Override
+    public void close() {
+        controller.close();
+        streamManager.close();
+        ExecutorServiceHelpers.shutdown(executor);
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.pravega.inproccluster;
+
+import com.google.common.base.Preconditions;
+import io.pravega.client.ClientConfig;
+import io.pravega.client.stream.impl.DefaultCredentials;
+import io.pravega.local.InProcPravegaCluster;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.example.pravega.shared.StandaloneServerTlsConstants;
+import org.example.pravega.shared.Utils;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Describes an in-process cluster: how many segment stores, controllers and segment containers it runs, the ports they
+ * listen on, its security settings and where it stores data. The defaults are those of the examples.
+ *
+ * By default, all the data is kept in memory. Given a tier-2 directory, the segment stores instead move the data of
+ * segments to files under that directory, and write their tier-1 log to BookKeeper, as they would in production. The
+ * bookies are not started here; for instance, {@code bin/bookkeeper localbookie 1} from a BookKeeper distribution
+ * starts one along with its ZooKeeper. Other segment store settings, such as the flush thresholds of tier-2, can be
+ * given as system properties.
+ */
+@Slf4j
+@Getter @Builder @ToString
+public class InProcClusterConfig {
+
+    public static final String USER_NAME = "admin";
+    public static final String PASSWORD = "1111_aaaa";
+
+    @Builder.Default
+    private final int segmentStoreCount = 1;
+
+    @Builder.Default
+    private final int controllerCount = 1;
+
+    /**
+     * Number of segment containers, which the controller spreads over the segment stores.
+     */
+    @Builder.Default
+    private final int containerCount = 4;
+
+    @Builder.Default
+    private final int zkPort = 4000;
+
+    /**
+     * One port per controller, and one per segment store.
+     */
+    @Builder.Default
+    private final int[] controllerPorts = {9090};
+
+    @Builder.Default
+    private final int[] segmentStorePorts = {6000};
+
+    @Builder.Default
+    private final int restServerPort = 9091;
+
+    private final boolean authEnabled;
+    private final boolean tlsEnabled;
+
+    /**
+     * Root directory of the file system tier-2 storage, or null to keep all the data in memory.
+     */
+    private final Path tier2Directory;
+
+    /**
+     * ZooKeeper through which the segment stores find the bookies, when the data is not kept in memory.
+     */
+    @Builder.Default
+    private final String bookKeeperZkUrl = "localhost:2181";
+
+    @Builder.Default
+    private final String bookKeeperLedgerPath = "/ledgers";
+
+    /**
+     * Number of bookies each entry of the tier-1 log is written to.
+     */
+    @Builder.Default
+    private final int bookKeeperEnsembleSize = 1;
+
+    /**
+     * Returns the ports from {@code first} up, or free ports if {@code first} is zero.
+     */
+    public static int[] ports(int first, int count) {
+        if (first == 0) {
+            return Utils.freePorts(count);
+        }
+        int[] ports = new int[count];
+        for (int i = 0; i < count; i++) {
+            ports[i] = first + i;
+        }
+        return ports;
+    }
+
+    /**
+     * Builds and starts the cluster it describes.
+     */
+    public InProcPravegaCluster start() throws Exception {
+        Preconditions.checkArgument(segmentStoreCount > 0, "segmentStoreCount must be positive");
+        Preconditions.checkArgument(controllerCount > 0, "controllerCount must be positive");
+        Preconditions.checkArgument(containerCount > 0, "containerCount must be positive");
+        Preconditions.checkArgument(bookKeeperEnsembleSize > 0, "bookKeeperEnsembleSize must be positive");
+        Preconditions.checkArgument(controllerPorts.length == controllerCount,
+                "Expected %s controller ports, got %s", controllerCount, controllerPorts.length);
+        Preconditions.checkArgument(segmentStorePorts.length == segmentStoreCount,
+                "Expected %s segment store ports, got %s", segmentStoreCount, segmentStorePorts.length);
+        Set<Integer> ports = new HashSet<>();
+        Arrays.stream(controllerPorts).forEach(ports::add);
+        Arrays.stream(segmentStorePorts).forEach(ports::add);
+        ports.add(zkPort);
+        ports.add(restServerPort);
+        Preconditions.checkArgument(ports.size() == controllerCount + segmentStoreCount + 2,
+                "Ports overlap: %s", this);
+        if (containerCount < segmentStoreCount) {
+            log.warn("Only {} of the {} segment stores can own a container", containerCount, segmentStoreCount);
+        }
+
+        InProcPravegaCluster.InProcPravegaClusterBuilder builder = InProcPravegaCluster.builder()
+                .isInProcZK(true)
+                .zkUrl("localhost:" + zkPort)
+                .zkPort(zkPort)
+                .isInMemStorage(tier2Directory == null)
+                .isInProcController(true)
+                .controllerCount(controllerCount)
+                .enableRestServer(true)
+                .restServerPort(restServerPort)
+                .isInProcSegmentStore(true)
+                .segmentStoreCount(segmentStoreCount)
+                .containerCount(containerCount);
+
+        if (tlsEnabled) {
+            builder.enableTls(true)
+                    .keyFile(StandaloneServerTlsConstants.SERVER_KEY_LOCATION)
+                    .certFile(StandaloneServerTlsConstants.SERVER_CERT_LOCATION)
+                    .jksKeyFile(StandaloneServerTlsConstants.SERVER_KEYSTORE_LOCATION)
+                    .jksTrustFile(StandaloneServerTlsConstants.TRUSTSTORE_LOCATION)
+                    .keyPasswordFile(StandaloneServerTlsConstants.SERVER_KEYSTORE_PWD_LOCATION);
+        }
+
+        if (authEnabled) {
+            builder.enableAuth(true)
+                    .userName(USER_NAME)
+                    .passwd(PASSWORD)
+                    .passwdFile(StandaloneServerTlsConstants.SERVER_PASSWD_LOCATION);
+        }
+
+        // The cluster builder has no settings for these; the segment stores read them from the system properties
+        // when they start, so they are restored once the cluster is up, and do not leak into other clusters.
+        final Map<String, String> previousProperties = new HashMap<>();
+        if (tier2Directory != null) {
+            Files.createDirectories(tier2Directory);
+            setProperty(previousProperties, "filesystem.root", tier2Directory.toAbsolutePath().toString());
+            setProperty(previousProperties, "bookkeeper.zkAddress", bookKeeperZkUrl);
+            setProperty(previousProperties, "bookkeeper.bkLedgerPath", bookKeeperLedgerPath);
+            setProperty(previousProperties, "bookkeeper.bkEnsembleSize", Integer.toString(bookKeeperEnsembleSize));
+            setProperty(previousProperties, "bookkeeper.bkWriteQuorumSize", Integer.toString(bookKeeperEnsembleSize));
+            setProperty(previousProperties, "bookkeeper.bkAckQuorumSize", Integer.toString(bookKeeperEnsembleSize));
+        }
+
+        InProcPravegaCluster cluster = builder.build();
+        cluster.setControllerPorts(controllerPorts);
+        cluster.setSegmentStorePorts(segmentStorePorts);
+
+        log.info("Starting in-proc Cluster {}...", this);
+        try {
+            cluster.start();
+        } catch (Exception e) {
+            try {
+                cluster.close();
+            } catch (Exception closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        } finally {
+            previousProperties.forEach((key, value) -> {
+                if (value == null) {
+                    System.clearProperty(key);
+                } else {
+                    System.setProperty(key, value);
+                }
+            });
+        }
+        log.info("Done starting in-proc Cluster.");
+        return cluster;
+    }
+
+    private static void setProperty(Map<String, String> previousProperties, String key, String value) {
+        previousProperties.put(key, System.setProperty(key, value));
+    }
+
+    /**
+     * Returns the URI of the controllers, listing all of them.
+     */
+    public URI controllerUri() {
+        return URI.create((tlsEnabled ? "tls" : "tcp") + "://" + Arrays.stream(controllerPorts)
+                .mapToObj(port -> "localhost:" + port)
+                .collect(Collectors.joining(",")));
+    }
+
+    /**
+     * Returns a client configuration for the cluster, with the trust store and credentials it requires.
+     */
+    public ClientConfig clientConfig() {
+        ClientConfig.ClientConfigBuilder builder = ClientConfig.builder()
+                .controllerURI(controllerUri());
+
+        if (tlsEnabled) {
+            builder.trustStore(StandaloneServerTlsConstants.CA_CERT_LOCATION)
+                    .validateHostName(false);
+        }
+        if (authEnabled) {
+            builder.credentials(new DefaultCredentials(PASSWORD, USER_NAME));
+        }
+        return builder.build();
+    }
+}
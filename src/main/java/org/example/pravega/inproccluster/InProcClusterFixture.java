@@ -0,0 +1,100 @@
+package org.example.pravega.inproccluster;
+
+import io.pravega.client.ClientConfig;
+import io.pravega.local.InProcPravegaCluster;
+import lombok.extern.slf4j.Slf4j;
+import org.example.pravega.shared.EnvironmentProperties;
+import org.example.pravega.shared.Utils;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process cluster that is started on first use and then shared by all the test classes of the JVM, so that
+ * ZooKeeper, the controller and the segment store are started once per suite instead of once per test.
+ *
+ * The ports of the cluster are picked among the free ports of the machine, so that suites can run in several JVMs at
+ * once. Since tests share the cluster, each should work in a scope of its own, named with {@link #uniqueScope}. Only
+ * one cluster runs at a time: asking for one with other security settings closes the current one first. The cluster
+ * is closed when the JVM exits.
+ */
+@Slf4j
+public final class InProcClusterFixture {
+
+    private static InProcClusterFixture current = null;
+    private static boolean shutdownHookAdded = false;
+
+    private final InProcClusterConfig config;
+    private final AtomicInteger scopeCount = new AtomicInteger();
+    private InProcPravegaCluster cluster;
+
+    private InProcClusterFixture(boolean authEnabled, boolean tlsEnabled) {
+        int[] ports = Utils.freePorts(4);
+        this.config = InProcClusterConfig.builder()
+                .zkPort(ports[0])
+                .controllerPorts(new int[]{ports[1]})
+                .segmentStorePorts(new int[]{ports[2]})
+                .restServerPort(ports[3])
+                .authEnabled(authEnabled)
+                .tlsEnabled(tlsEnabled)
+                .build();
+    }
+
+    /**
+     * Returns the shared cluster with the given security settings, starting it if it is not running yet.
+     */
+    public static synchronized InProcClusterFixture get(boolean authEnabled, boolean tlsEnabled) throws Exception {
+        if (current != null && current.config.isAuthEnabled() == authEnabled
+                && current.config.isTlsEnabled() == tlsEnabled) {
+            return current;
+        }
+        shutdown();
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(InProcClusterFixture::shutdown,
+                    "in-proc-cluster-shutdown"));
+            shutdownHookAdded = true;
+        }
+        InProcClusterFixture fixture = new InProcClusterFixture(authEnabled, tlsEnabled);
+        fixture.cluster = fixture.config.start();
+        current = fixture;
+        return current;
+    }
+
+    /**
+     * Closes the shared cluster, if it is running. The next call to {@link #get} starts a new one.
+     */
+    public static synchronized void shutdown() {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    private void close() {
+        log.info("Closing in-proc Cluster...");
+        try {
+            cluster.close();
+        } catch (Exception e) {
+            log.warn("Failed to close in-proc Cluster", e);
+        }
+    }
+
+    public URI controllerUri() {
+        return config.controllerUri();
+    }
+
+    public URI restUri() {
+        return URI.create(EnvironmentProperties.restUri("http", "localhost", config.getRestServerPort()));
+    }
+
+    public ClientConfig clientConfig() {
+        return config.clientConfig();
+    }
+
+    /**
+     * Returns a scope name starting with the given prefix that has not been returned before for this cluster.
+     */
+    public String uniqueScope(String prefix) {
+        return prefix + "-" + scopeCount.incrementAndGet();
+    }
+}
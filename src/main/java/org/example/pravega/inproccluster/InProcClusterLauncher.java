@@ -0,0 +1,142 @@
+package org.example.pravega.inproccluster;
+
+import io.pravega.common.concurrent.ExecutorServiceHelpers;
+import io.pravega.local.InProcPravegaCluster;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts an in-process cluster with as many segment stores, controllers and segment containers as asked for, and
+ * reports the load of each container once it is up, and then periodically if asked to.
+ *
+ * Settings are taken from the command line, then from a properties file whose keys are the long option names, e.g.
+ * {@code segment-stores=3}, and then from the defaults of the examples. Each kind of server takes consecutive ports
+ * from the first one given, or free ports if it is 0. With {@code --tier2-dir}, the data of the cluster is kept in
+ * files and in BookKeeper, see {@link InProcClusterConfig}.
+ */
+@Slf4j
+public class InProcClusterLauncher {
+
+    public static void main(String... args) throws Exception {
+        Options options = new Options();
+        options.addOption("p", "properties", true, "Properties file with default values for the other options");
+        options.addOption("s", "segment-stores", true, "Number of segment stores (default 1)");
+        options.addOption("c", "controllers", true, "Number of controllers (default 1)");
+        options.addOption("n", "containers", true, "Number of segment containers (default 4)");
+        options.addOption(null, "zk-port", true, "ZooKeeper port; 0 picks a free one (default 4000)");
+        options.addOption(null, "controller-port", true,
+                "First controller port; 0 picks free ones (default 9090)");
+        options.addOption(null, "segment-store-port", true,
+                "First segment store port; 0 picks free ones (default 6000)");
+        options.addOption(null, "rest-port", true, "REST server port; 0 picks a free one (default 9091)");
+        options.addOption(null, "tls", false, "Enable TLS");
+        options.addOption(null, "auth", false, "Enable authentication");
+        options.addOption("t", "tier2-dir", true,
+                "Keep tier-2 data in files under this directory, and the tier-1 log in BookKeeper, instead of "
+                        + "keeping all the data in memory");
+        options.addOption(null, "bookkeeper-zk", true,
+                "ZooKeeper of the bookies, with --tier2-dir (default localhost:2181)");
+        options.addOption(null, "bookies", true,
+                "Number of bookies each tier-1 log entry is written to, with --tier2-dir (default 1)");
+        options.addOption("r", "report-interval", true,
+                "Seconds between container load reports; 0 reports once, at startup (default 0)");
+        options.addOption("h", "help", false, "Print this help");
+
+        CommandLine cmd;
+        try {
+            cmd = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp(InProcClusterLauncher.class.getSimpleName(), options);
+            return;
+        }
+        if (cmd.hasOption("help")) {
+            new HelpFormatter().printHelp(InProcClusterLauncher.class.getSimpleName(), options);
+            return;
+        }
+
+        final Properties properties = loadProperties(cmd.getOptionValue("properties"));
+        final int segmentStoreCount = intValue(cmd, properties, "segment-stores", 1);
+        final int controllerCount = intValue(cmd, properties, "controllers", 1);
+        final String tier2Directory = cmd.getOptionValue("tier2-dir", properties.getProperty("tier2-dir"));
+        final InProcClusterConfig config = InProcClusterConfig.builder()
+                .segmentStoreCount(segmentStoreCount)
+                .controllerCount(controllerCount)
+                .containerCount(intValue(cmd, properties, "containers", 4))
+                .zkPort(InProcClusterConfig.ports(intValue(cmd, properties, "zk-port", 4000), 1)[0])
+                .controllerPorts(InProcClusterConfig.ports(intValue(cmd, properties, "controller-port", 9090),
+                        controllerCount))
+                .segmentStorePorts(InProcClusterConfig.ports(intValue(cmd, properties, "segment-store-port", 6000),
+                        segmentStoreCount))
+                .restServerPort(InProcClusterConfig.ports(intValue(cmd, properties, "rest-port", 9091), 1)[0])
+                .tlsEnabled(flag(cmd, properties, "tls"))
+                .authEnabled(flag(cmd, properties, "auth"))
+                .tier2Directory(tier2Directory == null ? null : Paths.get(tier2Directory))
+                .bookKeeperZkUrl(cmd.getOptionValue("bookkeeper-zk",
+                        properties.getProperty("bookkeeper-zk", "localhost:2181")))
+                .bookKeeperEnsembleSize(intValue(cmd, properties, "bookies", 1))
+                .build();
+        final int reportIntervalSeconds = intValue(cmd, properties, "report-interval", 0);
+
+        final InProcPravegaCluster inProcCluster = config.start();
+        log.info("Controller URI: {}", config.controllerUri());
+
+        final ContainerLoadReporter reporter = new ContainerLoadReporter(config.clientConfig(),
+                config.getContainerCount());
+        final ScheduledExecutorService executor = ExecutorServiceHelpers.newScheduledThreadPool(1, "launcher");
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                log.info("Shutdown Hook is running...");
+                ExecutorServiceHelpers.shutdown(executor);
+                reporter.close();
+                try {
+                    inProcCluster.close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+
+        reporter.report();
+        if (reportIntervalSeconds > 0) {
+            executor.scheduleWithFixedDelay(() -> {
+                try {
+                    reporter.report();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to report container load", e);
+                }
+            }, reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private static Properties loadProperties(String file) throws IOException {
+        Properties properties = new Properties();
+        if (file != null) {
+            try (InputStream in = Files.newInputStream(Paths.get(file))) {
+                properties.load(in);
+            }
+        }
+        return properties;
+    }
+
+    private static int intValue(CommandLine cmd, Properties properties, String name, int defaultValue) {
+        return Integer.parseInt(cmd.getOptionValue(name,
+                properties.getProperty(name, Integer.toString(defaultValue))).trim());
+    }
+
+    private static boolean flag(CommandLine cmd, Properties properties, String name) {
+        return cmd.hasOption(name) || Boolean.parseBoolean(properties.getProperty(name, "false").trim());
+    }
+}
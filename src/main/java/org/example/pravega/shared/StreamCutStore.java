@@ -0,0 +1,54 @@
+package org.example.pravega.shared;
+
+import io.pravega.client.stream.StreamCut;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Saves a {@link StreamCut} to, and loads it from, a local file.
+ */
+@Slf4j
+public class StreamCutStore {
+
+    private final Path file;
+
+    public StreamCutStore(@NonNull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the saved stream cut, or {@link StreamCut#UNBOUNDED} if none has been saved yet.
+     */
+    public StreamCut load() {
+        if (!Files.exists(file)) {
+            return StreamCut.UNBOUNDED;
+        }
+        try {
+            String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+            return text.isEmpty() ? StreamCut.UNBOUNDED : StreamCut.from(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void save(@NonNull StreamCut streamCut) {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(tempFile, streamCut.asText().getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved stream cut to {}", file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
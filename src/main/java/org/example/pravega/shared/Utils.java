@@ -1,5 +1,9 @@
 package org.example.pravega.shared;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
 public class Utils {
 
     public static int randomWithRange(int min, int max)
@@ -7,4 +11,33 @@ public class Utils {
         int range = (max - min) + 1;
         return (int)(Math.random() * range) + min;
     }
+
+    /**
+     * Returns the given number of distinct ports that are free at the time of the call. The sockets are all held open
+     * until every port is picked, so the same port is not returned twice.
+     */
+    public static int[] freePorts(int count) {
+        final ServerSocket[] sockets = new ServerSocket[count];
+        final int[] ports = new int[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                sockets[i] = new ServerSocket(0);
+                sockets[i].setReuseAddress(true);
+                ports[i] = sockets[i].getLocalPort();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (ServerSocket socket : sockets) {
+                if (socket != null) {
+                    try {
+                        socket.close();
+                    } catch (IOException e) {
+                        // Ignored; whoever binds the port next finds out if it is still taken.
+                    }
+                }
+            }
+        }
+        return ports;
+    }
 }